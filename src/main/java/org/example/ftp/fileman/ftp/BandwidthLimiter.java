@@ -0,0 +1,143 @@
+package org.example.ftp.fileman.ftp;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class BandwidthLimiter {
+
+    public static final int DEFAULT_WEIGHT = 1;
+
+    private static final long BASE_QUANTUM_BYTES = 16 * 1024;
+    private static final long MAX_BURST_NANOS = 50_000_000L;
+    private static final BandwidthLimiter SHARED = new BandwidthLimiter();
+
+    private final Bucket global = new Bucket(0);
+    private final ConcurrentHashMap<String, Bucket> users = new ConcurrentHashMap<>();
+
+    public static BandwidthLimiter shared() {
+        return SHARED;
+    }
+
+    public long getGlobalLimit() {
+        return global.rate;
+    }
+
+    public void setGlobalLimit(long bytesPerSecond) {
+        global.setRate(bytesPerSecond);
+    }
+
+    public long getUserLimit(String username) {
+        Bucket bucket = username != null ? users.get(username) : null;
+        return bucket != null ? bucket.rate : 0;
+    }
+
+    public void setUserLimit(String username, long bytesPerSecond) {
+        if (username == null) {
+            return;
+        }
+        users.computeIfAbsent(username, u -> new Bucket(0)).setRate(bytesPerSecond);
+    }
+
+    public long getEffectiveLimit(String username) {
+        return Throttle.tighter(global.rate, getUserLimit(username));
+    }
+
+    public Throttle open(String username, long transferLimit, int weight) {
+        Bucket user = username != null ? users.computeIfAbsent(username, u -> new Bucket(0)) : null;
+        return new Throttle(new Bucket(transferLimit), user, global, Math.max(1, weight));
+    }
+
+    public static class Throttle {
+        private final Bucket transfer;
+        private final Bucket user;
+        private final Bucket global;
+        private final int weight;
+
+        Throttle(Bucket transfer, Bucket user, Bucket global, int weight) {
+            this.transfer = transfer;
+            this.user = user;
+            this.global = global;
+            this.weight = weight;
+        }
+
+        public long getEffectiveLimit() {
+            long limit = 0;
+            limit = tighter(limit, transfer.rate);
+            limit = tighter(limit, user != null ? user.rate : 0);
+            limit = tighter(limit, global.rate);
+            return limit;
+        }
+
+        public boolean isLimited() {
+            return getEffectiveLimit() > 0;
+        }
+
+        public void acquire(long bytes) {
+            long quantum = BASE_QUANTUM_BYTES * weight;
+            while (bytes > 0) {
+                if (!isLimited()) {
+                    return;
+                }
+                long grant = Math.min(bytes, quantum);
+                long now = System.nanoTime();
+                long allowedAt = transfer.reserve(grant, now);
+                if (user != null) {
+                    allowedAt = user.reserve(grant, allowedAt);
+                }
+                allowedAt = global.reserve(grant, allowedAt);
+                if (!parkUntil(allowedAt)) {
+                    return;
+                }
+                bytes -= grant;
+            }
+        }
+
+        private static long tighter(long current, long rate) {
+            if (rate <= 0) {
+                return current;
+            }
+            return current <= 0 ? rate : Math.min(current, rate);
+        }
+
+        private static boolean parkUntil(long deadline) {
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+                if (Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class Bucket {
+        private volatile long rate;
+        private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+
+        Bucket(long rate) {
+            this.rate = Math.max(0, rate);
+        }
+
+        void setRate(long bytesPerSecond) {
+            rate = Math.max(0, bytesPerSecond);
+        }
+
+        long reserve(long bytes, long earliest) {
+            long bytesPerSecond = rate;
+            if (bytesPerSecond <= 0) {
+                return earliest;
+            }
+            long cost = bytes * 1_000_000_000L / bytesPerSecond;
+            while (true) {
+                long current = theoreticalArrival.get();
+                long allowedAt = Math.max(earliest, current - MAX_BURST_NANOS);
+                long next = Math.max(current, allowedAt) + cost;
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return allowedAt;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.ftp.fileman.ftp;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DirectBufferPool {
+
+    private final TransferEngineConfig config;
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    public DirectBufferPool(TransferEngineConfig config) {
+        this.config = config;
+    }
+
+    public ByteBuffer acquire() {
+        int size = config.getBufferSize();
+        ByteBuffer buffer;
+        while ((buffer = buffers.poll()) != null) {
+            pooled.decrementAndGet();
+            if (buffer.capacity() == size) {
+                buffer.clear();
+                return buffer;
+            }
+        }
+        return ByteBuffer.allocateDirect(size);
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || buffer.capacity() != config.getBufferSize()) {
+            return;
+        }
+        if (pooled.incrementAndGet() > config.getPooledBuffers()) {
+            pooled.decrementAndGet();
+            return;
+        }
+        buffer.clear();
+        buffers.offer(buffer);
+    }
+}
@@ -0,0 +1,191 @@
+package org.example.ftp.fileman.ftp;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.Properties;
+
+public class DownloadJournal {
+
+    private static final String PART_SUFFIX = ".part";
+    private static final String JOURNAL_SUFFIX = ".part.journal";
+
+    private final File targetFile;
+    private final String remotePath;
+    private final long remoteSize;
+    private final String remoteModified;
+    private final long[] segmentStarts;
+    private final long[] segmentEnds;
+    private final long[] segmentDone;
+
+    private DownloadJournal(File targetFile, String remotePath, long remoteSize, String remoteModified,
+                            long[] segmentStarts, long[] segmentEnds, long[] segmentDone) {
+        this.targetFile = targetFile;
+        this.remotePath = remotePath;
+        this.remoteSize = remoteSize;
+        this.remoteModified = remoteModified;
+        this.segmentStarts = segmentStarts;
+        this.segmentEnds = segmentEnds;
+        this.segmentDone = segmentDone;
+    }
+
+    public static File partFileFor(File targetFile) {
+        return new File(targetFile.getPath() + PART_SUFFIX);
+    }
+
+    public static File journalFileFor(File targetFile) {
+        return new File(targetFile.getPath() + JOURNAL_SUFFIX);
+    }
+
+    public static DownloadJournal create(File targetFile, String remotePath, long remoteSize, String remoteModified, int segments) {
+        if (remoteSize <= 0) {
+            segments = 1;
+        }
+        long[] starts = new long[segments];
+        long[] ends = new long[segments];
+        long[] done = new long[segments];
+
+        long segmentSize = remoteSize > 0 ? (remoteSize + segments - 1) / segments : -1;
+        for (int i = 0; i < segments; i++) {
+            starts[i] = remoteSize > 0 ? Math.min(remoteSize, i * segmentSize) : 0;
+            ends[i] = remoteSize > 0 ? Math.min(remoteSize, starts[i] + segmentSize) : -1;
+            done[i] = starts[i];
+        }
+        return new DownloadJournal(targetFile, remotePath, remoteSize, remoteModified, starts, ends, done);
+    }
+
+    public static DownloadJournal load(File targetFile) {
+        File journalFile = journalFileFor(targetFile);
+        if (!journalFile.isFile() || !partFileFor(targetFile).isFile()) {
+            return null;
+        }
+
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(journalFile)) {
+            props.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+            String remotePath = props.getProperty("remotePath");
+            long remoteSize = Long.parseLong(props.getProperty("remoteSize", "-1"));
+            String remoteModified = props.getProperty("remoteModified");
+            int segments = Integer.parseInt(props.getProperty("segments", "0"));
+            if (remotePath == null || segments <= 0) {
+                return null;
+            }
+
+            long[] starts = new long[segments];
+            long[] ends = new long[segments];
+            long[] done = new long[segments];
+            for (int i = 0; i < segments; i++) {
+                String[] parts = props.getProperty("segment." + i, "").split(",");
+                if (parts.length != 3) {
+                    return null;
+                }
+                starts[i] = Long.parseLong(parts[0]);
+                ends[i] = Long.parseLong(parts[1]);
+                done[i] = Long.parseLong(parts[2]);
+            }
+            return new DownloadJournal(targetFile, remotePath, remoteSize, remoteModified, starts, ends, done);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public static void discard(File targetFile) {
+        try {
+            Files.deleteIfExists(partFileFor(targetFile).toPath());
+            Files.deleteIfExists(journalFileFor(targetFile).toPath());
+        } catch (IOException e) {
+        }
+    }
+
+    public boolean matches(String remotePath, long remoteSize, String remoteModified) {
+        return this.remoteSize > 0
+            && this.remoteSize == remoteSize
+            && Objects.equals(this.remotePath, remotePath)
+            && Objects.equals(this.remoteModified, remoteModified);
+    }
+
+    public File getPartFile() {
+        return partFileFor(targetFile);
+    }
+
+    public String getRemotePath() {
+        return remotePath;
+    }
+
+    public long getRemoteSize() {
+        return remoteSize;
+    }
+
+    public int getSegmentCount() {
+        return segmentStarts.length;
+    }
+
+    public long getSegmentEnd(int segment) {
+        return segmentEnds[segment];
+    }
+
+    public synchronized long getSegmentDone(int segment) {
+        return segmentDone[segment];
+    }
+
+    public synchronized long getCompletedBytes() {
+        long total = 0;
+        for (int i = 0; i < segmentStarts.length; i++) {
+            total += segmentDone[i] - segmentStarts[i];
+        }
+        return total;
+    }
+
+    public synchronized void checkpoint(int segment, long offset) throws IOException {
+        if (offset <= segmentDone[segment]) {
+            return;
+        }
+        segmentDone[segment] = offset;
+        save();
+    }
+
+    public synchronized void save() throws IOException {
+        Properties props = new Properties();
+        props.setProperty("remotePath", remotePath);
+        props.setProperty("remoteSize", String.valueOf(remoteSize));
+        if (remoteModified != null) {
+            props.setProperty("remoteModified", remoteModified);
+        }
+        props.setProperty("segments", String.valueOf(segmentStarts.length));
+        for (int i = 0; i < segmentStarts.length; i++) {
+            props.setProperty("segment." + i, segmentStarts[i] + "," + segmentEnds[i] + "," + segmentDone[i]);
+        }
+
+        Path journalPath = journalFileFor(targetFile).toPath();
+        Path tmpPath = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmpPath.toFile())) {
+            props.store(new OutputStreamWriter(out, StandardCharsets.UTF_8), null);
+        }
+        moveReplacing(tmpPath, journalPath);
+    }
+
+    public void commit() throws IOException {
+        moveReplacing(getPartFile().toPath(), targetFile.toPath());
+        Files.deleteIfExists(journalFileFor(targetFile).toPath());
+    }
+
+    private static void moveReplacing(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
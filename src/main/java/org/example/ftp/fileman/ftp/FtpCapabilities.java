@@ -0,0 +1,149 @@
+package org.example.ftp.fileman.ftp;
+
+import org.apache.commons.net.ftp.FTPClient;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class FtpCapabilities {
+
+    public static final FtpCapabilities UNKNOWN = new FtpCapabilities(false, Collections.emptyMap());
+
+    private static final String[] PREFERRED_HASHES = {"SHA-256", "SHA-1", "MD5"};
+    private static final ConcurrentHashMap<String, FtpCapabilities> CACHE = new ConcurrentHashMap<>();
+
+    private final boolean featSupported;
+    private final Map<String, String> features;
+
+    private FtpCapabilities(boolean featSupported, Map<String, String> features) {
+        this.featSupported = featSupported;
+        this.features = features;
+    }
+
+    public static FtpCapabilities cached(String host, int port) {
+        FtpCapabilities capabilities = CACHE.get(key(host, port));
+        return capabilities != null ? capabilities : UNKNOWN;
+    }
+
+    public static FtpCapabilities probe(FTPClient client, String host, int port) throws IOException {
+        String key = key(host, port);
+        FtpCapabilities cached = CACHE.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        FtpCapabilities capabilities = parse(client);
+        CACHE.put(key, capabilities);
+        return capabilities;
+    }
+
+    public static void forget(String host, int port) {
+        CACHE.remove(key(host, port));
+    }
+
+    private static String key(String host, int port) {
+        return (host == null ? "" : host.toLowerCase(Locale.ROOT)) + ":" + port;
+    }
+
+    private static FtpCapabilities parse(FTPClient client) throws IOException {
+        if (!client.features()) {
+            return UNKNOWN;
+        }
+        Map<String, String> features = new HashMap<>();
+        String[] lines = client.getReplyStrings();
+        for (int i = 1; i < lines.length - 1; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            int space = line.indexOf(' ');
+            String name = (space < 0 ? line : line.substring(0, space)).toUpperCase(Locale.ROOT);
+            String parameters = space < 0 ? "" : line.substring(space + 1).trim();
+            features.put(name, parameters);
+        }
+        return new FtpCapabilities(true, Collections.unmodifiableMap(features));
+    }
+
+    public boolean isFeatSupported() {
+        return featSupported;
+    }
+
+    public boolean has(String feature) {
+        return features.containsKey(feature.toUpperCase(Locale.ROOT));
+    }
+
+    public String getParameters(String feature) {
+        return features.getOrDefault(feature.toUpperCase(Locale.ROOT), "");
+    }
+
+    public boolean supportsMlsd() {
+        return has("MLST") || has("MLSD");
+    }
+
+    public boolean supportsEpsv() {
+        return has("EPSV");
+    }
+
+    public boolean supportsRestStream() {
+        return getParameters("REST").toUpperCase(Locale.ROOT).contains("STREAM");
+    }
+
+    public boolean supportsSize() {
+        return has("SIZE");
+    }
+
+    public boolean supportsMdtm() {
+        return has("MDTM");
+    }
+
+    public boolean supportsHash() {
+        return has("HASH") && has("RANG") && getHashAlgorithm() != null;
+    }
+
+    public boolean supportsXcrc() {
+        return has("XCRC");
+    }
+
+    public boolean supportsXmd5() {
+        return has("XMD5");
+    }
+
+    public boolean supportsModeZ() {
+        return getParameters("MODE").toUpperCase(Locale.ROOT).contains("Z");
+    }
+
+    public boolean supportsUtf8() {
+        return has("UTF8");
+    }
+
+    public String getHashAlgorithm() {
+        String advertised = getParameters("HASH").toUpperCase(Locale.ROOT).replace("*", "");
+        for (String algorithm : PREFERRED_HASHES) {
+            for (String candidate : advertised.split(";")) {
+                if (candidate.trim().equals(algorithm) && isAvailable(algorithm)) {
+                    return algorithm;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isAvailable(String algorithm) {
+        try {
+            MessageDigest.getInstance(algorithm);
+            return true;
+        } catch (NoSuchAlgorithmException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return featSupported ? "FEAT " + features.keySet() : "FEAT unsupported";
+    }
+}
@@ -4,32 +4,209 @@ import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPClient;
 import org.apache.commons.net.ftp.FTPFile;
 import org.apache.commons.net.ftp.FTPReply;
+import org.apache.commons.net.MalformedServerReplyException;
 import org.apache.commons.net.ftp.parser.DefaultFTPFileEntryParserFactory;
 import org.apache.commons.net.ftp.parser.FTPFileEntryParserFactory;
 
 import java.io.*;
 import java.net.Socket;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
 
 public class FtpClientService {
-    private FTPClient ftpClient;
-    private boolean connected = false;
+    private volatile FtpSessionPool sessionPool;
+    private volatile boolean connected = false;
     private static final int SOCKET_TIMEOUT_MS = 5000;
+    public static final long DEFAULT_KEEPALIVE_INTERVAL_MS = 20_000;
+    public static final long DEFAULT_KEEPALIVE_REPLY_TIMEOUT_MS = 1_000;
+    private static final int DEFAULT_DOWNLOAD_SEGMENTS = 4;
+    private static final long SEGMENTED_DOWNLOAD_MIN_SIZE = 8L * 1024 * 1024;
+    private static final long JOURNAL_CHECKPOINT_BYTES = 4L * 1024 * 1024;
+    private static final int UPLOAD_TAIL_VERIFY_BYTES = 64 * 1024;
+    private static final long NIO_CHUNK_BYTES = 1024 * 1024;
 
     private volatile FtpErrorType lastErrorType = FtpErrorType.NONE;
     private volatile String lastErrorMessage = "";
 
+    private volatile String sessionHost;
+    private volatile int sessionPort;
+    private volatile String sessionUsername;
+    private volatile String sessionPassword;
+    private volatile Boolean restartSupported;
+    private volatile FtpCapabilities capabilities = FtpCapabilities.UNKNOWN;
+    private volatile int downloadSegments = DEFAULT_DOWNLOAD_SEGMENTS;
+    private volatile boolean nioTransfers = true;
+    private volatile long controlRoundTripNanos;
+    private volatile long sessionGeneration;
+    private volatile int bandwidthWeight = BandwidthLimiter.DEFAULT_WEIGHT;
+    private volatile int maxSessions = FtpSessionPool.DEFAULT_MAX_SESSIONS;
+    private volatile String workingDirectory = "/";
+    private volatile boolean worker = false;
+    private final LatencyTracker navigationLatency = new LatencyTracker();
+    private volatile ReconnectPolicy reconnectPolicy = ReconnectPolicy.DEFAULT;
+    // Every leased session and the thread that leased it, so aborting an operation reaches all of its sessions.
+    private final ConcurrentHashMap<FTPClient, Thread> activeSessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Thread, TransferMeter> activeTransfers = new ConcurrentHashMap<>();
+    private final Set<FTPClient> brokenSessions = ConcurrentHashMap.newKeySet();
+    private volatile long keepAliveIntervalMs = DEFAULT_KEEPALIVE_INTERVAL_MS;
+    private volatile long keepAliveReplyTimeoutMs = DEFAULT_KEEPALIVE_REPLY_TIMEOUT_MS;
+    private volatile long idleKeepAliveIntervalMs = FtpSessionPool.DEFAULT_KEEPALIVE_INTERVAL_MS;
+
+    private final TransferEngineConfig transferConfig;
+    private final DirectBufferPool bufferPool;
+    private final BandwidthLimiter bandwidthLimiter;
+    private final ListingCache listingCache;
+
     public FtpClientService() {
-        this.ftpClient = new FTPClient();
-        FTPFileEntryParserFactory parserFactory = new DefaultFTPFileEntryParserFactory();
-        ftpClient.setParserFactory(parserFactory);
+        this(new TransferEngineConfig(), null, BandwidthLimiter.shared(), new ListingCache());
+    }
+
+    private FtpClientService(TransferEngineConfig transferConfig, DirectBufferPool bufferPool, BandwidthLimiter bandwidthLimiter,
+                             ListingCache listingCache) {
+        this.transferConfig = transferConfig;
+        this.bufferPool = bufferPool != null ? bufferPool : new DirectBufferPool(transferConfig);
+        this.bandwidthLimiter = bandwidthLimiter;
+        this.listingCache = listingCache;
+    }
+
+    public FtpClientService openWorkerSession() throws IOException {
+        FtpSessionPool pool = sessionPool;
+        if (sessionHost == null || pool == null || !isConnected()) {
+            throw new IOException("Not connected");
+        }
+
+        // Workers borrow from this service's pool on the bulk lane, so the session cap stays global.
+        FtpClientService worker = new FtpClientService(transferConfig, bufferPool, bandwidthLimiter, listingCache);
+        worker.downloadSegments = downloadSegments;
+        worker.nioTransfers = nioTransfers;
+        worker.maxSessions = maxSessions;
+        worker.reconnectPolicy = reconnectPolicy;
+        worker.keepAliveIntervalMs = keepAliveIntervalMs;
+        worker.keepAliveReplyTimeoutMs = keepAliveReplyTimeoutMs;
+        worker.idleKeepAliveIntervalMs = idleKeepAliveIntervalMs;
+        worker.sessionHost = sessionHost;
+        worker.sessionPort = sessionPort;
+        worker.sessionUsername = sessionUsername;
+        worker.restartSupported = restartSupported;
+        worker.capabilities = capabilities;
+        worker.controlRoundTripNanos = controlRoundTripNanos;
+        worker.workingDirectory = workingDirectory;
+        worker.sessionGeneration = sessionGeneration;
+        worker.sessionPool = pool;
+        worker.worker = true;
+        worker.connected = true;
+        return worker;
+    }
+
+    public long getSessionGeneration() {
+        return sessionGeneration;
+    }
+
+    public int getDownloadSegments() {
+        return downloadSegments;
+    }
+
+    public void setDownloadSegments(int downloadSegments) {
+        this.downloadSegments = Math.max(1, downloadSegments);
+    }
+
+    public boolean isNioTransfers() {
+        return nioTransfers;
+    }
+
+    public void setNioTransfers(boolean nioTransfers) {
+        this.nioTransfers = nioTransfers;
+    }
+
+    public TransferEngineConfig getTransferEngineConfig() {
+        return transferConfig;
+    }
+
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    public void setMaxSessions(int maxSessions) {
+        this.maxSessions = Math.max(1, maxSessions);
+        FtpSessionPool pool = sessionPool;
+        if (pool != null && !worker) {
+            pool.setMaxSessions(this.maxSessions);
+        }
+    }
+
+    public FtpSessionPool getSessionPool() {
+        return sessionPool;
+    }
+
+    public ReconnectPolicy getReconnectPolicy() {
+        return reconnectPolicy;
+    }
+
+    public void setReconnectPolicy(ReconnectPolicy reconnectPolicy) {
+        this.reconnectPolicy = reconnectPolicy != null ? reconnectPolicy : ReconnectPolicy.NONE;
+    }
+
+    public long getKeepAliveIntervalMs() {
+        return keepAliveIntervalMs;
+    }
+
+    public void setKeepAliveIntervalMs(long keepAliveIntervalMs) {
+        this.keepAliveIntervalMs = Math.max(0, keepAliveIntervalMs);
+    }
+
+    public long getKeepAliveReplyTimeoutMs() {
+        return keepAliveReplyTimeoutMs;
+    }
+
+    public void setKeepAliveReplyTimeoutMs(long keepAliveReplyTimeoutMs) {
+        this.keepAliveReplyTimeoutMs = Math.max(1, keepAliveReplyTimeoutMs);
+    }
+
+    public long getIdleKeepAliveIntervalMs() {
+        return idleKeepAliveIntervalMs;
+    }
+
+    public void setIdleKeepAliveIntervalMs(long idleKeepAliveIntervalMs) {
+        this.idleKeepAliveIntervalMs = Math.max(0, idleKeepAliveIntervalMs);
+        FtpSessionPool pool = sessionPool;
+        if (pool != null && !worker) {
+            pool.setKeepAliveIntervalMs(this.idleKeepAliveIntervalMs);
+        }
+    }
+
+    public ListingCache getListingCache() {
+        return listingCache;
+    }
+
+    public BandwidthLimiter getBandwidthLimiter() {
+        return bandwidthLimiter;
+    }
+
+    public int getBandwidthWeight() {
+        return bandwidthWeight;
+    }
+
+    public void setBandwidthWeight(int bandwidthWeight) {
+        this.bandwidthWeight = Math.max(1, bandwidthWeight);
     }
 
     public FtpErrorType getLastErrorType() {
@@ -51,10 +228,10 @@ public class FtpClientService {
         return false;
     }
 
-    private String replySummary() {
+    private String replySummary(FTPClient client) {
         try {
-            int code = ftpClient.getReplyCode();
-            String rs = ftpClient.getReplyString();
+            int code = client.getReplyCode();
+            String rs = client.getReplyString();
             if (rs == null) rs = "";
             rs = rs.trim();
             return rs.isEmpty() ? String.valueOf(code) : (code + " " + rs);
@@ -85,53 +262,80 @@ public class FtpClientService {
     }
 
     public boolean connect(String host, int port, String username, String password) {
-        try {
-            clearLastError();
-            if (ftpClient.isConnected()) {
-                try {
-                    ftpClient.disconnect();
-                } catch (IOException e) {
-                }
-            }
-
-            connected = false;
+        clearLastError();
+        closeSessionPool();
 
-            ftpClient = new FTPClient();
-            FTPFileEntryParserFactory parserFactory = new DefaultFTPFileEntryParserFactory();
-            ftpClient.setParserFactory(parserFactory);
+        connected = false;
+        restartSupported = null;
+        capabilities = FtpCapabilities.cached(host, port);
 
-            ftpClient.setConnectTimeout(SOCKET_TIMEOUT_MS);
-            ftpClient.setDefaultTimeout(SOCKET_TIMEOUT_MS);
-            ftpClient.setDataTimeout(SOCKET_TIMEOUT_MS);
+        FTPClient client = new KeepAliveFtpClient();
+        try {
+            configureClient(client);
+            if (capabilities.supportsUtf8()) {
+                client.setControlEncoding("UTF-8");
+            }
 
-            ftpClient.connect(host, port);
-            ftpClient.setSoTimeout(SOCKET_TIMEOUT_MS);
-            int replyCode = ftpClient.getReplyCode();
+            client.connect(host, port);
+            client.setSoTimeout(SOCKET_TIMEOUT_MS);
+            int replyCode = client.getReplyCode();
 
             if (!FTPReply.isPositiveCompletion(replyCode)) {
                 try {
-                ftpClient.disconnect();
+                client.disconnect();
                 } catch (IOException e) {
                 }
-                return fail(FtpErrorType.SERVER_UNAVAILABLE, "Server refused connection (" + replySummary() + ")");
+                return fail(FtpErrorType.SERVER_UNAVAILABLE, "Server refused connection (" + replySummary(client) + ")");
             }
 
-            boolean loggedIn = ftpClient.login(username, password);
+            boolean loggedIn = client.login(username, password);
             if (loggedIn) {
-                ftpClient.setFileType(FTP.BINARY_FILE_TYPE);
+                capabilities = FtpCapabilities.probe(client, host, port);
+                if (capabilities.isFeatSupported()) {
+                    restartSupported = capabilities.supportsRestStream();
+                }
+                enableUtf8(client);
+                client.setFileType(FTP.BINARY_FILE_TYPE);
+                client.enterLocalPassiveMode();
+                measureRoundTrip(client);
+                String home = client.printWorkingDirectory();
+                sessionHost = host;
+                sessionPort = port;
+                sessionUsername = username;
+                sessionPassword = password;
+                workingDirectory = home == null || home.isEmpty() ? "/" : home;
+                listingCache.bind(username + "@" + host + ":" + port);
+                sessionGeneration++;
                 connected = true;
+                sessionPool = new FtpSessionPool(new FtpSessionPool.SessionFactory() {
+                    @Override
+                    public FTPClient open() throws IOException {
+                        return openSession();
+                    }
+
+                    @Override
+                    public void close(FTPClient session) {
+                        closeSession(session);
+                    }
+                }, maxSessions, FtpSessionPool.DEFAULT_IDLE_TIMEOUT_MS).start();
+                sessionPool.setKeepAliveIntervalMs(idleKeepAliveIntervalMs);
+                if (capabilities.supportsUtf8() && !"UTF-8".equals(client.getControlEncoding())) {
+                    closeSession(client);
+                } else {
+                    sessionPool.adopt(client);
+                }
                 return true;
             } else {
                 try {
-                ftpClient.disconnect();
+                client.disconnect();
                 } catch (IOException e) {
                 }
-                return fail(FtpErrorType.INVALID_CREDENTIALS, "Invalid username/password (" + replySummary() + ")");
+                return fail(FtpErrorType.INVALID_CREDENTIALS, "Invalid username/password (" + replySummary(client) + ")");
             }
         } catch (IOException e) {
             try {
-                if (ftpClient.isConnected()) {
-                    ftpClient.disconnect();
+                if (client.isConnected()) {
+                    client.disconnect();
                 }
             } catch (IOException e2) {
             }
@@ -140,71 +344,344 @@ public class FtpClientService {
     }
 
     public void disconnect() {
+        connected = false;
+        closeSessionPool();
+        sessionPassword = null;
+        clearLastError();
+    }
+
+    private void closeSessionPool() {
+        FtpSessionPool pool = sessionPool;
+        sessionPool = null;
+        if (pool != null && !worker) {
+            pool.close();
+        }
+        worker = false;
+    }
+
+    public LatencyTracker getNavigationLatency() {
+        return navigationLatency;
+    }
+
+    public boolean awaitInteractiveIdle(long timeoutMs) throws InterruptedException {
+        FtpSessionPool pool = sessionPool;
+        return pool == null || pool.awaitInteractiveIdle(timeoutMs);
+    }
+
+    private FTPClient leaseSession(FtpSessionPool.Lane lane) throws IOException {
+        FtpSessionPool pool = sessionPool;
+        if (pool == null || !connected) {
+            fail(FtpErrorType.SERVER_UNAVAILABLE, "Not connected");
+            throw new IOException("Not connected");
+        }
+        if (worker) {
+            lane = FtpSessionPool.Lane.BULK;
+        }
+        int attempt = 1;
+        while (true) {
+            try {
+                FTPClient client = pool.lease(lane);
+                activeSessions.put(client, Thread.currentThread());
+                return client;
+            } catch (FtpSessionPool.PoolExhaustedException e) {
+                fail(FtpErrorType.SERVER_UNAVAILABLE, e.getMessage());
+                throw e;
+            } catch (IOException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    fail(FtpErrorType.CANCELLED, "Operation cancelled");
+                    throw e;
+                }
+                if (pool.isClosed() || !reconnectPolicy.shouldRetry(classify(e), attempt) || !reconnectPolicy.backoff(attempt)) {
+                    fail(FtpErrorType.SERVER_UNAVAILABLE, "Server went offline / unreachable");
+                    connected = false;
+                    throw e;
+                }
+                attempt++;
+            }
+        }
+    }
+
+    private interface SessionCall<T> {
+        T call(FTPClient client) throws IOException;
+    }
+
+    private <T> T withRetry(FtpSessionPool.Lane lane, SessionCall<T> call) throws IOException {
+        int attempt = 1;
+        while (true) {
+            FTPClient client = leaseSession(lane);
+            boolean broken = false;
+            try {
+                return call.call(client);
+            } catch (IOException e) {
+                broken = true;
+                if (Thread.currentThread().isInterrupted()) {
+                    fail(FtpErrorType.CANCELLED, "Operation cancelled");
+                    throw e;
+                }
+                FtpErrorType type = classify(e);
+                if (!reconnectPolicy.shouldRetry(type, attempt) || !reconnectPolicy.backoff(attempt)) {
+                    fail(type, "Server went offline / unreachable");
+                    throw e;
+                }
+                attempt++;
+            } finally {
+                releaseSession(client, broken);
+            }
+        }
+    }
+
+    private static FtpErrorType classify(IOException e) {
+        if (e instanceof MalformedServerReplyException) {
+            return FtpErrorType.PROTOCOL_ERROR;
+        }
+        return FtpErrorType.SERVER_UNAVAILABLE;
+    }
+
+    public void abortOperation(Thread thread) {
+        if (thread == null) {
+            return;
+        }
+        activeSessions.forEach((client, owner) -> {
+            if (owner == thread) {
+                try {
+                    client.disconnect();
+                } catch (IOException e) {
+                }
+            }
+        });
+    }
+
+    public void cancelTransfer(Thread thread) {
+        TransferMeter meter = thread != null ? activeTransfers.get(thread) : null;
+        if (meter != null) {
+            meter.cancel();
+        }
+    }
+
+    private TransferMeter track(TransferMeter meter) {
+        activeTransfers.put(Thread.currentThread(), meter);
+        return meter;
+    }
+
+    private void releaseSession(FTPClient client) {
+        releaseSession(client, false);
+    }
+
+    private void releaseSession(FTPClient client, boolean broken) {
+        if (client == null) {
+            return;
+        }
+        activeSessions.remove(client);
+        broken |= brokenSessions.remove(client);
+        FtpSessionPool pool = sessionPool;
+        boolean returned = pool != null && (broken ? pool.invalidate(client) : pool.release(client));
+        if (!returned) {
+            closeSession(client);
+        }
+    }
+
+    // Helpers deep in a transfer mark the session instead of closing it; the code that leased it disposes of it once.
+    private void markBroken(FTPClient client) {
+        if (client != null) {
+            brokenSessions.add(client);
+        }
+    }
+
+    private void configureClient(FTPClient client) {
+        FTPFileEntryParserFactory parserFactory = new DefaultFTPFileEntryParserFactory();
+        client.setParserFactory(parserFactory);
+
+        client.setConnectTimeout(SOCKET_TIMEOUT_MS);
+        client.setDefaultTimeout(SOCKET_TIMEOUT_MS);
+        client.setDataTimeout(Duration.ofMillis(SOCKET_TIMEOUT_MS));
+        client.setControlKeepAliveTimeout(Duration.ofMillis(keepAliveIntervalMs));
+        client.setControlKeepAliveReplyTimeout(Duration.ofMillis(keepAliveReplyTimeoutMs));
+        applyTransferConfig(client);
+    }
+
+    private static void keepAlive(FTPClient client) throws IOException {
+        if (client instanceof KeepAliveFtpClient keepAliveClient) {
+            keepAliveClient.keepAlive();
+        }
+    }
+
+    private void applyTransferConfig(FTPClient client) {
+        client.setBufferSize(transferConfig.getBufferSize());
+        client.setSendDataSocketBufferSize(transferConfig.getSendBufferSize());
+        client.setReceieveDataSocketBufferSize(transferConfig.getReceiveBufferSize());
+    }
+
+    private void measureRoundTrip(FTPClient client) {
+        try {
+            long started = System.nanoTime();
+            if (client.sendNoOp()) {
+                controlRoundTripNanos = System.nanoTime() - started;
+            }
+        } catch (IOException e) {
+        }
+    }
+
+    private SocketChannel openDataChannel(FTPClient client) throws IOException {
+        return FtpDataChannel.openPassive(client, capabilities.supportsEpsv(), SOCKET_TIMEOUT_MS,
+            transferConfig.getSendBufferSize(), transferConfig.getReceiveBufferSize());
+    }
+
+    private void observeThroughput(TransferMeter progress, int connections) {
+        transferConfig.observe(progress.getSessionBytes() / Math.max(1, connections), progress.getElapsedNanos(), controlRoundTripNanos);
+    }
+
+    private FTPClient openSession() throws IOException {
+        String host = sessionHost;
+        if (host == null || !isConnected()) {
+            throw new IOException("Not connected");
+        }
+
+        FTPClient session = new KeepAliveFtpClient();
+        configureClient(session);
+        if (capabilities.supportsUtf8()) {
+            session.setControlEncoding("UTF-8");
+        }
         try {
-            if (ftpClient.isConnected()) {
-                ftpClient.logout();
-                ftpClient.disconnect();
+            session.connect(host, sessionPort);
+            session.setSoTimeout(SOCKET_TIMEOUT_MS);
+            if (!FTPReply.isPositiveCompletion(session.getReplyCode())) {
+                throw new IOException("Server refused extra session (" + session.getReplyString().trim() + ")");
             }
-            connected = false;
-            clearLastError();
+            if (!session.login(sessionUsername, sessionPassword)) {
+                throw new IOException("Extra session login failed (" + session.getReplyString().trim() + ")");
+            }
+            enableUtf8(session);
+            session.setFileType(FTP.BINARY_FILE_TYPE);
+            session.enterLocalPassiveMode();
+            session.changeWorkingDirectory(workingDirectory);
+            return session;
         } catch (IOException e) {
+            closeSession(session);
+            throw e;
         }
     }
 
-    private void disconnectSilently() {
+    private static void closeSession(FTPClient session) {
         try {
-            if (ftpClient != null && ftpClient.isConnected()) {
+            if (session != null && session.isConnected()) {
                 try {
-                    ftpClient.logout();
+                    session.logout();
                 } catch (Exception ignored) {
                 }
-                ftpClient.disconnect();
+                session.disconnect();
             }
         } catch (Exception ignored) {
-        } finally {
-            connected = false;
         }
     }
 
+    public FtpCapabilities getCapabilities() {
+        return capabilities;
+    }
+
+    private void enableUtf8(FTPClient client) throws IOException {
+        if (capabilities.supportsUtf8() && "UTF-8".equals(client.getControlEncoding())) {
+            client.sendCommand("OPTS", "UTF8 ON");
+        }
+    }
+
+    private boolean supportsRestart(FTPClient client) {
+        Boolean cached = restartSupported;
+        if (cached != null) {
+            return cached;
+        }
+        boolean supported;
+        try {
+            supported = client.sendCommand("REST", "0") == FTPReply.FILE_ACTION_PENDING;
+        } catch (IOException e) {
+            supported = false;
+        }
+        restartSupported = supported;
+        return supported;
+    }
+
+    private String resolveRemotePath(String path) {
+        if (path != null && path.startsWith("/")) {
+            return path;
+        }
+        String pwd = workingDirectory;
+        if (path == null || path.isEmpty() || path.equals(".")) {
+            return pwd;
+        }
+        return pwd.endsWith("/") ? pwd + path : pwd + "/" + path;
+    }
 
-    private void abortAndReset() {
+    private void abortAndReset(FTPClient client) {
         try {
-            ftpClient.abort();
+            client.abort();
         } catch (Exception e) {
             fail(FtpErrorType.SERVER_UNAVAILABLE, "Server went offline during transfer");
-            disconnectSilently();
+            markBroken(client);
             return;
         }
 
         try {
-            ftpClient.completePendingCommand();
+            client.completePendingCommand();
         } catch (Exception e) {
             fail(FtpErrorType.PROTOCOL_ERROR, "Transfer cancelled, but session needs reconnect");
-            disconnectSilently();
+            markBroken(client);
         }
     }
 
     public boolean isConnected() {
-        return connected && ftpClient.isConnected();
+        FtpSessionPool pool = sessionPool;
+        return connected && pool != null && !pool.isClosed();
+    }
+
+    public interface ListingCallback {
+
+        void onEntries(List<FtpFileInfo> batch, int totalEntries);
+
+        // The listing switched to another source; entries delivered so far are superseded by the batches that follow.
+        default void onReset() {
+        }
     }
 
     public List<FtpFileInfo> listFiles(String path) throws IOException {
-        List<FtpFileInfo> files = new ArrayList<>();
+        return listFiles(path, null);
+    }
 
+    public List<FtpFileInfo> listFiles(String path, ListingCallback callback) throws IOException {
         if (!isConnected()) {
             fail(FtpErrorType.SERVER_UNAVAILABLE, "Not connected");
-            return files;
+            return new ArrayList<>();
+        }
+
+        long started = System.nanoTime();
+        String target = resolveRemotePath(path);
+        ListingSink sink = new ListingSink(callback);
+        List<FtpFileInfo> cached = listingCache.get(target);
+        if (cached != null) {
+            cached.forEach(sink);
+            sink.finish();
+            navigationLatency.record(System.nanoTime() - started);
+            return sink.getFiles();
         }
 
+        long cacheVersion = listingCache.getVersion();
+        String listingError;
         try {
-            files = parseListManually(path);
-        } catch (IOException e) {
-            fail(FtpErrorType.SERVER_UNAVAILABLE, "Server went offline / unreachable");
-            disconnectSilently();
-            throw e;
+            listingError = withRetry(FtpSessionPool.Lane.INTERACTIVE, client -> {
+                if (capabilities.supportsMlsd()) {
+                    return listMachineReadable(client, target, sink);
+                }
+                parseListManually(client, target, sink);
+                return null;
+            });
+        } finally {
+            navigationLatency.record(System.nanoTime() - started);
         }
 
-        return files;
+        if (listingError != null) {
+            throw new IOException(listingError);
+        }
+        sink.finish();
+        listingCache.put(target, sink.getFiles(), cacheVersion);
+        return sink.getFiles();
     }
 
     private boolean allFilesHaveEmptyNames(FTPFile[] ftpFiles) {
@@ -219,112 +696,113 @@ public class FtpClientService {
         return true;
     }
 
-    private List<FtpFileInfo> parseListManually(String path) throws IOException {
-        List<FtpFileInfo> files = new ArrayList<>();
+    private String listMachineReadable(FTPClient client, String path, ListingSink sink) throws IOException {
+        SocketChannel dataChannel = openDataChannel(client);
+        if (dataChannel == null) {
+            parseListManually(client, path, sink);
+            return null;
+        }
 
-        try {
-            int pasvReply = ftpClient.sendCommand("PASV");
-            if (!FTPReply.isPositiveCompletion(pasvReply)) {
-                return fallbackListNames(path);
+        int reply;
+        try (Socket dataSocket = dataChannel.socket()) {
+            reply = path == null || path.isEmpty() ? client.sendCommand("MLSD") : client.sendCommand("MLSD", path);
+            if (FTPReply.isPositivePreliminary(reply)) {
+                sink.begin("MLSD");
+                try (InputStream in = dataSocket.getInputStream()) {
+                    ListEntryParser.read(in, MlsdEntryParser::parse, sink);
+                }
             }
+        }
 
-            String pasvResponse = ftpClient.getReplyString();
-            Pattern pasvPattern = Pattern.compile("\\(([0-9]+),([0-9]+),([0-9]+),([0-9]+),([0-9]+),([0-9]+)\\)");
-            Matcher pasvMatcher = pasvPattern.matcher(pasvResponse);
-
-            if (!pasvMatcher.find()) {
-                return fallbackListNames(path);
+        if (FTPReply.isPositivePreliminary(reply)) {
+            if (!client.completePendingCommand()) {
+                return listingError(client, path);
             }
+            return null;
+        }
+        if (reply == FTPReply.FILE_UNAVAILABLE) {
+            return listingError(client, path);
+        }
+        parseListManually(client, path, sink);
+        return null;
+    }
 
-            String ip = pasvMatcher.group(1) + "." + pasvMatcher.group(2) + "." +
-                       pasvMatcher.group(3) + "." + pasvMatcher.group(4);
-            int port = Integer.parseInt(pasvMatcher.group(5)) * 256 + Integer.parseInt(pasvMatcher.group(6));
+    private String listingError(FTPClient client, String path) {
+        int code = client.getReplyCode();
+        String rep = replySummary(client);
+        FtpErrorType t = mapReplyCode(code);
+        if (t == FtpErrorType.PERMISSION_DENIED) {
+            t = mapReplyForPath(rep);
+        }
+        String message;
+        if (t == FtpErrorType.PATH_NOT_FOUND) {
+            message = "Folder not found: " + path + " (" + rep + ")";
+        } else if (t == FtpErrorType.PERMISSION_DENIED) {
+            message = "Permission denied: " + path + " (" + rep + ")";
+        } else {
+            message = "Failed to list " + path + " (" + rep + ")";
+        }
+        fail(t, message);
+        return message;
+    }
 
-            Socket dataSocket = new Socket(ip, port);
+    private void parseListManually(FTPClient client, String path, ListingSink sink) throws IOException {
+        try {
+            SocketChannel dataChannel = openDataChannel(client);
+            if (dataChannel == null) {
+                listNames(client, path, sink);
+                return;
+            }
+            Socket dataSocket = dataChannel.socket();
 
             String listCommand = path == null || path.isEmpty() ? "LIST" : "LIST " + path;
-            int listReply = ftpClient.sendCommand(listCommand);
+            int listReply = client.sendCommand(listCommand);
 
             if (listReply == 226) {
             } else if (!FTPReply.isPositivePreliminary(listReply)) {
                 dataSocket.close();
-                return fallbackListNames(path);
+                listNames(client, path, sink);
+                return;
             }
 
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(dataSocket.getInputStream(), "UTF-8"))) {
-
-                Pattern unixPattern = Pattern.compile(
-                    "^([d-])([rwx-]{9})\\s+\\d+\\s+\\S+\\s+\\S+\\s+(\\d+)\\s+(\\w{3}\\s+\\d{1,2}(?:\\s+\\d{1,2}:\\d{2}|\\s+\\d{4}))\\s+(.+)$"
-                );
-
-                String line;
-                int lineCount = 0;
-                while ((line = reader.readLine()) != null) {
-                    lineCount++;
-                    line = line.trim();
-                    if (line.isEmpty()) {
-                        continue;
-                    }
-
-                    Matcher matcher = unixPattern.matcher(line);
-                    if (matcher.matches()) {
-                        String type = matcher.group(1);
-                        String sizeStr = matcher.group(3);
-                        String dateStr = matcher.group(4);
-                        String name = matcher.group(5);
-
-                        if (name.equals(".") || name.equals("..")) {
-                            continue;
-                        }
-
-                        boolean isDir = type.equals("d");
-                        long size = 0;
-                        try {
-                            size = Long.parseLong(sizeStr);
-                        } catch (NumberFormatException e) {
-                        }
-
-                        Calendar timestamp = parseDate(dateStr);
-
-                        files.add(new FtpFileInfo(name, isDir, size, timestamp));
-                    } else {
-                        String[] parts = line.split("\\s+");
-                        if (parts.length >= 2) {
-                            String name = parts[parts.length - 1];
-                            if (!name.equals(".") && !name.equals("..") && !name.isEmpty()) {
-                                boolean isDir = line.startsWith("d");
-                                files.add(new FtpFileInfo(name, isDir, 0, null));
-                            }
-                        }
-                    }
-                }
+            sink.begin("LIST");
+            try (InputStream in = dataSocket.getInputStream()) {
+                ListEntryParser.read(in, ListEntryParser::parse, sink);
             }
 
             dataSocket.close();
 
             if (listReply != 226) {
-                ftpClient.getReply();
+                client.getReply();
             }
 
         } catch (Exception e) {
-            return fallbackListNames(path);
+            listNames(client, path, sink);
         }
+    }
 
-        return files;
+    private void listNames(FTPClient client, String path, ListingSink sink) throws IOException {
+        List<FtpFileInfo> files = fallbackListNames(client, path);
+        sink.reset();
+        files.forEach(sink);
     }
 
-    private List<FtpFileInfo> fallbackListNames(String path) throws IOException {
-        List<FtpFileInfo> files = new ArrayList<>();
+    private List<FtpFileInfo> fallbackListNames(FTPClient client, String path) throws IOException {
+        List<FtpFileInfo> files = listViaStatus(client, path);
+        if (files != null) {
+            return files;
+        }
+        files = new ArrayList<>();
 
         String[] names;
         try {
             if (path == null || path.isEmpty()) {
-                names = ftpClient.listNames();
+                names = client.listNames();
             } else {
-                names = ftpClient.listNames(path);
+                names = client.listNames(path);
             }
         } catch (Exception e) {
+            client.sendNoOp();
             return files;
         }
 
@@ -332,87 +810,100 @@ public class FtpClientService {
             return files;
         }
 
+        List<String> entries = new ArrayList<>();
+        List<String> targets = new ArrayList<>();
         for (String name : names) {
             if (name == null || name.equals(".") || name.equals("..")) {
                 continue;
             }
-
-            boolean isDir = false;
-            try {
-                String currentDir = ftpClient.printWorkingDirectory();
-                if (ftpClient.changeWorkingDirectory(name)) {
-                    isDir = true;
-                    ftpClient.changeWorkingDirectory(currentDir);
+            entries.add(name);
+            targets.add(childPath(path, name));
+        }
+
+        FtpCapabilities caps = capabilities;
+        if (!caps.isFeatSupported() || caps.supportsSize()) {
+            String[] replies = pipeline(client, "SIZE", targets);
+            boolean answered = false;
+            for (String reply : replies) {
+                int code = replyCode(reply);
+                if (code == FTPReply.FILE_STATUS || code == FTPReply.FILE_UNAVAILABLE) {
+                    answered = true;
+                    break;
                 }
-            } catch (Exception e) {
-                isDir = false;
             }
-
-            files.add(new FtpFileInfo(name, isDir, 0, null));
+            if (answered) {
+                for (int i = 0; i < entries.size(); i++) {
+                    boolean isFile = replyCode(replies[i]) == FTPReply.FILE_STATUS;
+                    long size = isFile ? parseReplySize(replies[i]) : 0;
+                    files.add(new FtpFileInfo(entries.get(i), !isFile, size, null));
+                }
+                return files;
+            }
         }
 
+        String[] replies = pipeline(client, "CWD", targets);
+        for (int i = 0; i < entries.size(); i++) {
+            boolean isDir = FTPReply.isPositiveCompletion(replyCode(replies[i]));
+            files.add(new FtpFileInfo(entries.get(i), isDir, 0, null));
+        }
         return files;
     }
 
-    private List<FtpFileInfo> parseRawListResponse(String path) throws IOException {
-        List<FtpFileInfo> files = new ArrayList<>();
-
-        String[] names;
-        if (path == null || path.isEmpty()) {
-            names = ftpClient.listNames();
-        } else {
-            names = ftpClient.listNames(path);
+    private List<FtpFileInfo> listViaStatus(FTPClient client, String path) throws IOException {
+        String status = path == null || path.isEmpty() ? client.getStatus(".") : client.getStatus(path);
+        if (status == null) {
+            return null;
         }
-
-        if (names != null) {
-            for (String name : names) {
-                if (name.equals(".") || name.equals("..")) {
-                    continue;
-                }
-                boolean isDir = false;
-                try {
-                    String currentDir = ftpClient.printWorkingDirectory();
-                    if (ftpClient.changeWorkingDirectory(name)) {
-                        isDir = true;
-                        ftpClient.changeWorkingDirectory(currentDir);
-                    }
-                } catch (Exception e) {
-                    isDir = false;
-                }
-                files.add(new FtpFileInfo(name, isDir, 0, null));
+        String[] lines = client.getReplyStrings();
+        if (lines.length < 3) {
+            return null;
+        }
+        List<FtpFileInfo> files = new ArrayList<>();
+        for (int i = 1; i < lines.length - 1; i++) {
+            FtpFileInfo info = ListEntryParser.parse(lines[i]);
+            if (info != null) {
+                files.add(info);
             }
         }
+        return files.isEmpty() ? null : files;
+    }
 
-        return files;
+    private static String[] pipeline(FTPClient client, String command, List<String> arguments) throws IOException {
+        if (client instanceof KeepAliveFtpClient) {
+            return ((KeepAliveFtpClient) client).pipeline(command, arguments);
+        }
+        String[] replies = new String[arguments.size()];
+        for (int i = 0; i < replies.length; i++) {
+            client.sendCommand(command, arguments.get(i));
+            replies[i] = client.getReplyString();
+        }
+        return replies;
     }
 
-    private Calendar parseDate(String dateStr) {
-        if (dateStr == null || dateStr.trim().isEmpty()) {
-            return null;
+    private static int replyCode(String reply) {
+        if (reply == null || reply.length() < 3) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(reply.substring(0, 3));
+        } catch (NumberFormatException e) {
+            return -1;
         }
+    }
 
+    private static long parseReplySize(String reply) {
         try {
-            SimpleDateFormat format1 = new SimpleDateFormat("MMM dd HH:mm", Locale.ENGLISH);
-            SimpleDateFormat format2 = new SimpleDateFormat("MMM dd yyyy", Locale.ENGLISH);
+            return Long.parseLong(reply.substring(4).trim());
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
 
-            Calendar cal = Calendar.getInstance();
-            try {
-                cal.setTime(format1.parse(dateStr));
-                if (dateStr.matches("\\w{3}\\s+\\d{1,2}\\s+\\d{1,2}:\\d{2}")) {
-                    int currentYear = Calendar.getInstance().get(Calendar.YEAR);
-                    cal.set(Calendar.YEAR, currentYear);
-                }
-            } catch (ParseException e) {
-                try {
-                    cal.setTime(format2.parse(dateStr));
-                } catch (ParseException e2) {
-                    return null;
-                }
-            }
-            return cal;
-        } catch (Exception e) {
-            return null;
+    private static String childPath(String parent, String name) {
+        if (name.startsWith("/") || parent == null || parent.isEmpty()) {
+            return name;
         }
+        return parent.endsWith("/") ? parent + name : parent + "/" + name;
     }
 
     public String getCurrentDirectory() throws IOException {
@@ -420,13 +911,7 @@ public class FtpClientService {
             fail(FtpErrorType.SERVER_UNAVAILABLE, "Not connected");
             return "/";
         }
-        try {
-            return ftpClient.printWorkingDirectory();
-        } catch (IOException e) {
-            fail(FtpErrorType.SERVER_UNAVAILABLE, "Server went offline / unreachable");
-            disconnectSilently();
-            throw e;
-        }
+        return workingDirectory;
     }
 
     public boolean changeDirectory(String path) throws IOException {
@@ -436,29 +921,22 @@ public class FtpClientService {
             return false;
         }
 
-        String currentDirBefore = null;
+        long started = System.nanoTime();
+        String target = resolveRemotePath(path);
         try {
-            currentDirBefore = ftpClient.printWorkingDirectory();
-        } catch (Exception e) {
-        }
-
-        boolean result;
-        try {
-            result = ftpClient.changeWorkingDirectory(path);
-        } catch (IOException e) {
-            fail(FtpErrorType.SERVER_UNAVAILABLE, "Server went offline / unreachable");
-            disconnectSilently();
-            throw e;
+            return withRetry(FtpSessionPool.Lane.INTERACTIVE, client -> changeDirectory(client, path, target));
+        } finally {
+            navigationLatency.record(System.nanoTime() - started);
         }
+    }
 
+    private boolean changeDirectory(FTPClient client, String path, String target) throws IOException {
+        boolean result = client.changeWorkingDirectory(target);
         if (result) {
-            try {
-                String currentDirAfter = ftpClient.printWorkingDirectory();
-            } catch (Exception e) {
-            }
+            workingDirectory = ListingCache.normalize(target);
         } else {
-            int code = ftpClient.getReplyCode();
-            String rep = replySummary();
+            int code = client.getReplyCode();
+            String rep = replySummary(client);
             FtpErrorType t = mapReplyCode(code);
             if (t == FtpErrorType.PERMISSION_DENIED) {
                 t = mapReplyForPath(rep);
@@ -470,12 +948,7 @@ public class FtpClientService {
             } else {
                 fail(FtpErrorType.UNKNOWN, "Failed to change directory: " + path + " (" + rep + ")");
             }
-            try {
-                String currentDirAfter = ftpClient.printWorkingDirectory();
-            } catch (Exception e) {
-            }
         }
-
         return result;
     }
 
@@ -485,23 +958,18 @@ public class FtpClientService {
             return false;
         }
 
-        String currentDirBefore = null;
+        String target = resolveRemotePath(path);
+        FTPClient client = leaseSession(FtpSessionPool.Lane.INTERACTIVE);
+        boolean broken = false;
         try {
-            currentDirBefore = ftpClient.printWorkingDirectory();
-        } catch (Exception e) {
-        }
-
-        boolean result = ftpClient.makeDirectory(path);
-
-        if (result) {
-            try {
-                String currentDirAfter = ftpClient.printWorkingDirectory();
-            } catch (Exception e) {
-            }
-        } else {
+            return client.makeDirectory(target);
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        } finally {
+            listingCache.invalidateTree(target);
+            releaseSession(client, broken);
         }
-
-        return result;
     }
 
     public boolean deleteFile(String path) throws IOException {
@@ -509,26 +977,34 @@ public class FtpClientService {
             fail(FtpErrorType.SERVER_UNAVAILABLE, "Not connected");
             return false;
         }
-        boolean ok;
+        String target = resolveRemotePath(path);
+        FTPClient client = leaseSession(FtpSessionPool.Lane.INTERACTIVE);
+        boolean broken = false;
         try {
-            ok = ftpClient.deleteFile(path);
-        } catch (IOException e) {
-            fail(FtpErrorType.SERVER_UNAVAILABLE, "Server went offline / unreachable");
-            disconnectSilently();
-            throw e;
-        }
-        if (!ok) {
-            String rep = replySummary();
-            FtpErrorType t = mapReplyForPath(rep);
-            if (t == FtpErrorType.PERMISSION_DENIED) {
-                fail(t, "Permission denied: cannot delete " + path + " (" + rep + ")");
-            } else if (t == FtpErrorType.PATH_NOT_FOUND) {
-                fail(t, "File not found: " + path + " (" + rep + ")");
-            } else {
-                fail(FtpErrorType.UNKNOWN, "Failed to delete " + path + " (" + rep + ")");
+            boolean ok;
+            try {
+                ok = client.deleteFile(target);
+            } catch (IOException e) {
+                fail(FtpErrorType.SERVER_UNAVAILABLE, "Server went offline / unreachable");
+                broken = true;
+                throw e;
             }
+            if (!ok) {
+                String rep = replySummary(client);
+                FtpErrorType t = mapReplyForPath(rep);
+                if (t == FtpErrorType.PERMISSION_DENIED) {
+                    fail(t, "Permission denied: cannot delete " + path + " (" + rep + ")");
+                } else if (t == FtpErrorType.PATH_NOT_FOUND) {
+                    fail(t, "File not found: " + path + " (" + rep + ")");
+                } else {
+                    fail(FtpErrorType.UNKNOWN, "Failed to delete " + path + " (" + rep + ")");
+                }
+            }
+            return ok;
+        } finally {
+            listingCache.invalidateParent(target);
+            releaseSession(client, broken);
         }
-        return ok;
     }
 
     public boolean deleteDirectory(String path) throws IOException {
@@ -536,26 +1012,34 @@ public class FtpClientService {
             fail(FtpErrorType.SERVER_UNAVAILABLE, "Not connected");
             return false;
         }
-        boolean ok;
+        String target = resolveRemotePath(path);
+        FTPClient client = leaseSession(FtpSessionPool.Lane.INTERACTIVE);
+        boolean broken = false;
         try {
-            ok = ftpClient.removeDirectory(path);
-        } catch (IOException e) {
-            fail(FtpErrorType.SERVER_UNAVAILABLE, "Server went offline / unreachable");
-            disconnectSilently();
-            throw e;
-        }
-        if (!ok) {
-            String rep = replySummary();
-            FtpErrorType t = mapReplyForPath(rep);
-            if (t == FtpErrorType.PERMISSION_DENIED) {
-                fail(t, "Permission denied: cannot delete folder " + path + " (" + rep + ")");
-            } else if (t == FtpErrorType.PATH_NOT_FOUND) {
-                fail(t, "Folder not found: " + path + " (" + rep + ")");
-            } else {
-                fail(FtpErrorType.UNKNOWN, "Failed to delete folder " + path + " (" + rep + ")");
+            boolean ok;
+            try {
+                ok = client.removeDirectory(target);
+            } catch (IOException e) {
+                fail(FtpErrorType.SERVER_UNAVAILABLE, "Server went offline / unreachable");
+                broken = true;
+                throw e;
+            }
+            if (!ok) {
+                String rep = replySummary(client);
+                FtpErrorType t = mapReplyForPath(rep);
+                if (t == FtpErrorType.PERMISSION_DENIED) {
+                    fail(t, "Permission denied: cannot delete folder " + path + " (" + rep + ")");
+                } else if (t == FtpErrorType.PATH_NOT_FOUND) {
+                    fail(t, "Folder not found: " + path + " (" + rep + ")");
+                } else {
+                    fail(FtpErrorType.UNKNOWN, "Failed to delete folder " + path + " (" + rep + ")");
+                }
             }
+            return ok;
+        } finally {
+            listingCache.invalidateTree(target);
+            releaseSession(client, broken);
         }
-        return ok;
     }
 
     public interface UploadProgressCallback {
@@ -564,76 +1048,6 @@ public class FtpClientService {
     }
 
 
-    private static class ClientRateLimiter {
-        private volatile long bytesPerSecond;
-        private long available;
-        private long lastCheck;
-
-        public ClientRateLimiter(long bytesPerSecond) {
-            this.bytesPerSecond = bytesPerSecond;
-            this.available = bytesPerSecond;
-            this.lastCheck = System.nanoTime();
-        }
-
-        public synchronized void acquire(int bytes) {
-            refill();
-
-            while (available < bytes) {
-                try {
-                    long nanosToWait = (bytes - available) * 1_000_000_000L / bytesPerSecond;
-                    Thread.sleep(Math.max(1, nanosToWait / 1_000_000));
-                    refill();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    return;
-                }
-            }
-
-            available -= bytes;
-        }
-
-        private void refill() {
-            long now = System.nanoTime();
-            long elapsed = now - lastCheck;
-
-            long refill = elapsed * bytesPerSecond / 1_000_000_000L;
-
-            if (refill > 0) {
-                available = Math.min(bytesPerSecond, available + refill);
-                lastCheck = now;
-            }
-        }
-
-        public long getLimit() {
-            return bytesPerSecond;
-        }
-    }
-
-
-    private static class ThrottledInputStream extends FilterInputStream {
-        private final ClientRateLimiter limiter;
-
-        public ThrottledInputStream(InputStream in, ClientRateLimiter limiter) {
-            super(in);
-            this.limiter = limiter;
-        }
-
-        @Override
-        public int read(byte[] b, int off, int len) throws IOException {
-            int bytesRead = super.read(b, off, len);
-            if (bytesRead > 0) {
-                limiter.acquire(bytesRead);
-            }
-            return bytesRead;
-        }
-
-        @Override
-        public int read() throws IOException {
-            limiter.acquire(1);
-            return super.read();
-        }
-    }
-
     public interface DownloadProgressCallback {
 
         boolean onProgress(long bytesTransferred, long totalBytes, double speedBytesPerSecond);
@@ -648,63 +1062,113 @@ public class FtpClientService {
     }
 
     public boolean uploadFile(File localFile, String remotePath, UploadProgressCallback progressCallback, Long rateLimitBytesPerSecond) throws IOException {
+        return uploadFile(localFile, remotePath, progressCallback, rateLimitBytesPerSecond, false, false);
+    }
+
+    public boolean uploadFile(File localFile, String remotePath, UploadProgressCallback progressCallback, Long rateLimitBytesPerSecond,
+                              boolean resume, boolean verifyTail) throws IOException {
 
         if (!isConnected()) {
             return false;
         }
 
-        ftpClient.setFileType(FTP.BINARY_FILE_TYPE);
+        remotePath = resolveRemotePath(remotePath);
+        long fileSize = localFile.length();
+
+        long resumeOffset = 0;
+        if (resume) {
+            long remoteSize = getRemoteFileSize(remotePath);
+            if (remoteSize > 0 && remoteSize <= fileSize) {
+                resumeOffset = remoteSize;
+                if (verifyTail && !verifyRemoteTail(remotePath, localFile, remoteSize)) {
+                    resumeOffset = 0;
+                }
+            }
+            if (resumeOffset == fileSize) {
+                if (progressCallback != null) {
+                    progressCallback.onProgress(fileSize, fileSize, 0.0);
+                }
+                return true;
+            }
+        }
+
+        FTPClient client = leaseSession(FtpSessionPool.Lane.BULK);
+        try {
+            return uploadFile(client, localFile, remotePath, fileSize, resumeOffset, progressCallback, rateLimitBytesPerSecond);
+        } finally {
+            activeTransfers.remove(Thread.currentThread());
+            listingCache.invalidateParent(remotePath);
+            releaseSession(client);
+        }
+    }
 
-        ftpClient.enterLocalPassiveMode();
+    private boolean uploadFile(FTPClient client, File localFile, String remotePath, long fileSize, long resumeOffset,
+                               UploadProgressCallback progressCallback, Long rateLimitBytesPerSecond) throws IOException {
+        client.setFileType(FTP.BINARY_FILE_TYPE);
+        applyTransferConfig(client);
 
-        long fileSize = localFile.length();
+        client.enterLocalPassiveMode();
+
+        if (nioTransfers) {
+            SocketChannel dataChannel = null;
+            try {
+                dataChannel = openDataChannel(client);
+            } catch (IOException e) {
+            }
+            if (dataChannel != null) {
+                return uploadViaChannel(client, dataChannel, localFile, remotePath, fileSize, resumeOffset, progressCallback, rateLimitBytesPerSecond);
+            }
+        }
 
         FileInputStream fileInputStream = null;
         OutputStream outputStream = null;
         OutputStream outputStreamToUse = null;
+        TransferMeter meter = null;
         boolean success = false;
         boolean wasCancelled = false;
 
         try {
 
-            outputStream = ftpClient.storeFileStream(remotePath);
+            if (resumeOffset > 0 && supportsRestart(client)) {
+                client.setRestartOffset(resumeOffset);
+                outputStream = client.storeFileStream(remotePath);
+            } else if (resumeOffset > 0) {
+                outputStream = client.appendFileStream(remotePath);
+            } else {
+                outputStream = client.storeFileStream(remotePath);
+            }
             if (outputStream == null) {
-                int replyCode = ftpClient.getReplyCode();
-                String replyString = ftpClient.getReplyString();
-                return false;
+                String rep = replySummary(client);
+                FtpErrorType t = mapReplyForPath(rep);
+                return fail(t == FtpErrorType.UNKNOWN ? FtpErrorType.TRANSFER_FAILED : t, "Failed to upload " + remotePath + " (" + rep + ")");
             }
 
             outputStreamToUse = outputStream;
 
             fileInputStream = new FileInputStream(localFile);
-
-            InputStream baseInputStream = fileInputStream;
-            if (rateLimitBytesPerSecond != null && rateLimitBytesPerSecond > 0) {
-                ClientRateLimiter limiter = new ClientRateLimiter(rateLimitBytesPerSecond);
-                baseInputStream = new ThrottledInputStream(fileInputStream, limiter);
-            } else {
+            if (resumeOffset > 0) {
+                fileInputStream.getChannel().position(resumeOffset);
             }
 
-            InputStream inputStreamToUse;
-            if (progressCallback != null && fileSize > 0) {
-                inputStreamToUse = new ProgressTrackingInputStream(baseInputStream, fileSize, progressCallback);
-            } else {
-                inputStreamToUse = baseInputStream;
-            }
+            meter = track(new TransferMeter(fileSize, resumeOffset,
+                progressCallback == null ? null : progressCallback::onProgress, openThrottle(rateLimitBytesPerSecond)));
+            meter.attach(outputStream);
+            InputStream inputStreamToUse = meter.meter(fileInputStream);
 
-            byte[] buffer = new byte[8192];
+            byte[] buffer = new byte[transferConfig.getBufferSize()];
             int bytesRead;
             while ((bytesRead = inputStreamToUse.read(buffer)) != -1) {
                 outputStreamToUse.write(buffer, 0, bytesRead);
+                keepAlive(client);
 
-                if (inputStreamToUse instanceof ProgressTrackingInputStream && ((ProgressTrackingInputStream) inputStreamToUse).isCancelled()) {
+                if (meter.isCancelled()) {
                     wasCancelled = true;
                     break;
                 }
             }
 
-            if (!wasCancelled && inputStreamToUse instanceof ProgressTrackingInputStream) {
-                wasCancelled = ((ProgressTrackingInputStream) inputStreamToUse).isCancelled();
+            if (!wasCancelled) {
+                wasCancelled = meter.isCancelled();
             }
 
             if (wasCancelled) {
@@ -716,7 +1180,7 @@ public class FtpClientService {
                     outputStreamToUse.close();
                 } catch (IOException e) {
                 }
-                abortAndReset();
+                abortAndReset(client);
                 return false;
             }
 
@@ -725,14 +1189,15 @@ public class FtpClientService {
             fileInputStream.close();
             fileInputStream = null;
 
+            meter.detach(outputStream);
             outputStreamToUse.close();
             outputStreamToUse = null;
             outputStream.close();
             outputStream = null;
 
-            success = ftpClient.completePendingCommand();
-            int replyCode = ftpClient.getReplyCode();
-            String replyString = ftpClient.getReplyString();
+            success = client.completePendingCommand();
+            int replyCode = client.getReplyCode();
+            String replyString = client.getReplyString();
 
             if (success && FTPReply.isPositiveCompletion(replyCode)) {
                 return true;
@@ -740,9 +1205,16 @@ public class FtpClientService {
                 return false;
             }
         } catch (IOException e) {
-            disconnectSilently();
+            if (meter != null && meter.isCancelled()) {
+                abortAndReset(client);
+                return false;
+            }
+            markBroken(client);
             return false;
         } finally {
+            if (meter != null && outputStream != null) {
+                meter.detach(outputStream);
+            }
             try {
                 if (fileInputStream != null) {
                     fileInputStream.close();
@@ -758,111 +1230,224 @@ public class FtpClientService {
         }
     }
 
-    private static class ProgressTrackingInputStream extends InputStream {
-        private final InputStream delegate;
-        private final long totalBytes;
-        private final UploadProgressCallback callback;
-        private long bytesRead = 0;
-        private long lastUpdateTime = System.currentTimeMillis();
-        private long lastBytesRead = 0;
-        private double lastSpeed = 0.0;
-        private volatile boolean cancelled = false;
+    private boolean uploadViaChannel(FTPClient client, SocketChannel dataChannel, File localFile, String remotePath, long fileSize, long resumeOffset,
+                                     UploadProgressCallback progressCallback, Long rateLimitBytesPerSecond) {
+        BandwidthLimiter.Throttle throttle = openThrottle(rateLimitBytesPerSecond);
+        TransferMeter progress = track(new TransferMeter(fileSize, resumeOffset,
+            progressCallback == null ? null : progressCallback::onProgress, throttle));
+        long chunkSize = chunkSizeFor(throttle.getEffectiveLimit());
+        progress.attach(dataChannel);
 
-        public ProgressTrackingInputStream(InputStream delegate, long totalBytes, UploadProgressCallback callback) {
-            this.delegate = delegate;
-            this.totalBytes = totalBytes;
-            this.callback = callback;
-        }
+        try {
+            String command = "STOR";
+            if (resumeOffset > 0 && supportsRestart(client)) {
+                int restReply = client.sendCommand("REST", String.valueOf(resumeOffset));
+                if (!FTPReply.isPositiveIntermediate(restReply)) {
+                    command = "APPE";
+                }
+            } else if (resumeOffset > 0) {
+                command = "APPE";
+            }
 
-        public boolean isCancelled() {
-            return cancelled;
-        }
+            int reply = client.sendCommand(command, remotePath);
+            if (!FTPReply.isPositivePreliminary(reply)) {
+                String rep = replySummary(client);
+                FtpErrorType t = mapReplyForPath(rep);
+                return fail(t == FtpErrorType.UNKNOWN ? FtpErrorType.TRANSFER_FAILED : t, "Failed to upload " + remotePath + " (" + rep + ")");
+            }
 
-        @Override
-        public int read() throws IOException {
-            int result = delegate.read();
-            if (result != -1) {
-                bytesRead++;
-                updateProgress();
+            long position;
+            try (FileChannel file = FileChannel.open(localFile.toPath(), StandardOpenOption.READ)) {
+                position = FtpDataChannel.send(file, resumeOffset, fileSize, dataChannel, chunkSize, SOCKET_TIMEOUT_MS, (pos, bytes) -> {
+                    progress.add(bytes);
+                    keepAlive(client);
+                    return !progress.isStopped();
+                });
             }
-            return result;
-        }
+            dataChannel.close();
 
-        @Override
-        public int read(byte[] b, int off, int len) throws IOException {
-            if (cancelled) {
-                return -1;
+            if (progress.isCancelled()) {
+                abortAndReset(client);
+                return false;
+            }
+            if (position < fileSize) {
+                abortAndReset(client);
+                return fail(FtpErrorType.TRANSFER_FAILED, "Upload stopped at " + position + " of " + fileSize + " bytes");
             }
+            if (!client.completePendingCommand()) {
+                return fail(FtpErrorType.TRANSFER_FAILED, "Upload failed (" + replySummary(client) + ")");
+            }
+            progress.report(true);
+            observeThroughput(progress, 1);
+            return true;
+        } catch (IOException e) {
+            if (progress.isCancelled()) {
+                abortAndReset(client);
+                return false;
+            }
+            markBroken(client);
+            return false;
+        } finally {
+            progress.detach(dataChannel);
+            try {
+                dataChannel.close();
+            } catch (IOException e) {
+            }
+        }
+    }
 
-            int result = delegate.read(b, off, len);
-            if (result > 0) {
-                bytesRead += result;
-                if (!updateProgress(false)) {
-                    cancelled = true;
-                    try {
-                        delegate.close();
-                    } catch (IOException e) {
-                    }
-                    return -1;
+    private static long chunkSizeFor(long rateLimitBytesPerSecond) {
+        if (rateLimitBytesPerSecond <= 0) {
+            return NIO_CHUNK_BYTES;
+        }
+        return Math.max(1, Math.min(NIO_CHUNK_BYTES, rateLimitBytesPerSecond / 10));
+    }
+
+    private BandwidthLimiter.Throttle openThrottle(Long transferLimitBytesPerSecond) {
+        long transferLimit = transferLimitBytesPerSecond != null ? transferLimitBytesPerSecond : 0;
+        return bandwidthLimiter.open(sessionUsername, transferLimit, bandwidthWeight);
+    }
+
+    public long getRemoteFileSize(String remotePath) {
+        if (!isConnected()) {
+            return -1;
+        }
+        String path = resolveRemotePath(remotePath);
+        try {
+            return withRetry(FtpSessionPool.Lane.BULK, client -> {
+                long size = sizeOf(client, path);
+                if (size >= 0) {
+                    return size;
                 }
-            } else if (result == -1) {
-                if (bytesRead > 0) {
-                    updateProgress(true);
+                try {
+                    FTPFile[] files = client.listFiles(path);
+                    if (files != null && files.length == 1 && files[0].isFile()) {
+                        return files[0].getSize();
+                    }
+                } catch (IOException e) {
                 }
-            }
-            return result;
+                return -1L;
+            });
+        } catch (IOException e) {
+            return -1;
         }
+    }
 
-        private boolean updateProgress() {
-            return updateProgress(false);
+    private long sizeOf(FTPClient client, String absolutePath) throws IOException {
+        FtpCapabilities caps = capabilities;
+        if (caps.isFeatSupported() && !caps.supportsSize()) {
+            return -1;
         }
+        String size = client.getSize(absolutePath);
+        if (size != null) {
+            try {
+                return Long.parseLong(size.trim());
+            } catch (NumberFormatException e) {
+            }
+        }
+        return -1;
+    }
 
+    private boolean verifyRemoteTail(String remotePath, File localFile, long remoteSize) {
+        int tailLength = (int) Math.min(UPLOAD_TAIL_VERIFY_BYTES, remoteSize);
+        long tailStart = remoteSize - tailLength;
+        String path = resolveRemotePath(remotePath);
 
-        private boolean updateProgress(boolean force) {
-            long currentTime = System.currentTimeMillis();
-            long timeDelta = currentTime - lastUpdateTime;
-            long bytesDelta = bytesRead - lastBytesRead;
+        byte[] localTail = new byte[tailLength];
+        try (RandomAccessFile raf = new RandomAccessFile(localFile, "r")) {
+            raf.seek(tailStart);
+            raf.readFully(localTail);
+        } catch (IOException e) {
+            return false;
+        }
 
-            boolean shouldUpdate = force ||
-                                   timeDelta >= 10 ||
-                                   bytesDelta >= 2048 ||
-                                   (bytesRead > 0 && lastBytesRead == 0);
+        FTPClient client;
+        try {
+            client = leaseSession(FtpSessionPool.Lane.BULK);
+        } catch (IOException e) {
+            return false;
+        }
+        boolean reusable = false;
+        try {
+            Boolean checksumMatches = verifyRemoteChecksum(client, path, localTail, tailStart, remoteSize);
+            if (checksumMatches != null) {
+                reusable = true;
+                return checksumMatches;
+            }
+            if (!supportsRestart(client)) {
+                reusable = true;
+                return false;
+            }
 
-            if (shouldUpdate) {
-                double speedBytesPerSecond = lastSpeed;
-                if (timeDelta > 0 && bytesDelta > 0) {
-                    speedBytesPerSecond = (bytesDelta * 1000.0) / timeDelta;
-                    lastSpeed = speedBytesPerSecond;
-                } else if (bytesRead > 0 && lastBytesRead == 0) {
-                    speedBytesPerSecond = 0.0;
+            byte[] remoteTail = new byte[tailLength];
+            client.setRestartOffset(tailStart);
+            try (InputStream in = client.retrieveFileStream(path)) {
+                if (in == null) {
+                    reusable = true;
+                    return false;
                 }
-
-                try {
-                    boolean shouldContinue = callback.onProgress(bytesRead, totalBytes, speedBytesPerSecond);
-                    if (!shouldContinue) {
+                int read = 0;
+                while (read < tailLength) {
+                    int n = in.read(remoteTail, read, tailLength - read);
+                    if (n == -1) {
                         return false;
                     }
-                } catch (Exception e) {
+                    read += n;
+                }
+                if (in.read() != -1) {
+                    return false;
                 }
-
-                lastUpdateTime = currentTime;
-                lastBytesRead = bytesRead;
             }
-            return true;
+            reusable = client.completePendingCommand();
+            return Arrays.equals(localTail, remoteTail);
+        } catch (IOException e) {
+            return false;
+        } finally {
+            client.setRestartOffset(0);
+            releaseSession(client, !reusable);
         }
+    }
 
-        @Override
-        public void close() throws IOException {
-            if (bytesRead > 0) {
-                updateProgress(true);
+    private Boolean verifyRemoteChecksum(FTPClient client, String path, byte[] localTail, long tailStart, long remoteSize)
+        throws IOException {
+        FtpCapabilities caps = capabilities;
+        try {
+            if (caps.supportsHash()) {
+                String algorithm = caps.getHashAlgorithm();
+                if (FTPReply.isPositiveCompletion(client.sendCommand("OPTS", "HASH " + algorithm))
+                    && FTPReply.isPositiveIntermediate(client.sendCommand("RANG", tailStart + " " + (remoteSize - 1)))
+                    && client.sendCommand("HASH", path) == 213) {
+                    byte[] expected = MessageDigest.getInstance(algorithm).digest(localTail);
+                    return matchesDigest(client.getReplyString(), HexFormat.of().formatHex(expected));
+                }
+                client.sendCommand("RANG", "1 0");
             }
-            delegate.close();
+            String range = tailStart > 0 ? " " + tailStart : "";
+            if (caps.supportsXmd5() && FTPReply.isPositiveCompletion(client.sendCommand("XMD5", "\"" + path + "\"" + range))) {
+                byte[] expected = MessageDigest.getInstance("MD5").digest(localTail);
+                return matchesDigest(client.getReplyString(), HexFormat.of().formatHex(expected));
+            }
+            if (caps.supportsXcrc() && FTPReply.isPositiveCompletion(client.sendCommand("XCRC", "\"" + path + "\"" + range))) {
+                CRC32 crc = new CRC32();
+                crc.update(localTail);
+                return matchesDigest(client.getReplyString(), String.format("%08x", crc.getValue()));
+            }
+        } catch (NoSuchAlgorithmException e) {
         }
+        return null;
+    }
 
-        @Override
-        public int available() throws IOException {
-            return delegate.available();
+    private static boolean matchesDigest(String reply, String expectedHex) {
+        for (String token : reply.trim().split("\\s+")) {
+            String candidate = token.startsWith("0x") || token.startsWith("0X") ? token.substring(2) : token;
+            if (candidate.length() < expectedHex.length() && candidate.length() >= expectedHex.length() - 7) {
+                candidate = "0".repeat(expectedHex.length() - candidate.length()) + candidate;
+            }
+            if (candidate.equalsIgnoreCase(expectedHex)) {
+                return true;
+            }
         }
+        return false;
     }
 
     public boolean downloadFile(String remotePath, File localFile) throws IOException {
@@ -874,296 +1459,496 @@ public class FtpClientService {
     }
 
     public boolean downloadFile(String remotePath, File localFile, DownloadProgressCallback progressCallback, long knownFileSize) throws IOException {
+        return downloadFile(remotePath, localFile, progressCallback, knownFileSize, false);
+    }
+
+    public boolean downloadFile(String remotePath, File localFile, DownloadProgressCallback progressCallback, long knownFileSize,
+                                boolean resume) throws IOException {
 
         if (!isConnected()) {
             return false;
         }
 
-        ftpClient.setFileType(FTP.BINARY_FILE_TYPE);
-
-        ftpClient.enterLocalPassiveMode();
+        String absolutePath = resolveRemotePath(remotePath);
+        try {
+            return downloadWithRetry(absolutePath, localFile, progressCallback, knownFileSize, resume);
+        } finally {
+            activeTransfers.remove(Thread.currentThread());
+        }
+    }
 
-        long fileSize = knownFileSize;
-        if (fileSize <= 0) {
+    private boolean downloadWithRetry(String absolutePath, File localFile, DownloadProgressCallback progressCallback, long knownFileSize,
+                                      boolean resume) throws IOException {
+        int attempt = 1;
+        while (true) {
+            FtpErrorType error;
+            FTPClient client = leaseSession(FtpSessionPool.Lane.BULK);
+            boolean broken = false;
             try {
-                FTPFile[] files = ftpClient.listFiles(remotePath);
-                if (files != null && files.length > 0 && files[0].isFile()) {
-                    fileSize = files[0].getSize();
-                }
+                error = downloadFile(client, absolutePath, localFile, progressCallback, knownFileSize, resume || attempt > 1);
             } catch (IOException e) {
+                broken = true;
+                FtpErrorType type = classify(e);
+                if (Thread.currentThread().isInterrupted() || !reconnectPolicy.shouldRetry(type, attempt)
+                    || !reconnectPolicy.backoff(attempt)) {
+                    fail(type, "Server went offline / unreachable");
+                    throw e;
+                }
+                attempt++;
+                continue;
+            } finally {
+                releaseSession(client, broken);
             }
-        } else {
+            if (error == FtpErrorType.NONE || Thread.currentThread().isInterrupted()
+                || !reconnectPolicy.shouldRetry(error, attempt) || !reconnectPolicy.backoff(attempt)) {
+                return error == FtpErrorType.NONE;
+            }
+            attempt++;
         }
+    }
 
-        InputStream inputStream = null;
-        FileOutputStream fileOutputStream = null;
-        boolean success = false;
-        try {
-
-            inputStream = ftpClient.retrieveFileStream(remotePath);
-            if (inputStream == null) {
-                int replyCode = ftpClient.getReplyCode();
-                String replyString = ftpClient.getReplyString();
-                return false;
-            }
+    private FtpErrorType downloadFile(FTPClient client, String absolutePath, File localFile, DownloadProgressCallback progressCallback,
+                                 long knownFileSize, boolean resume) throws IOException {
+        client.setFileType(FTP.BINARY_FILE_TYPE);
+        applyTransferConfig(client);
 
-            fileOutputStream = new FileOutputStream(localFile);
+        client.enterLocalPassiveMode();
 
-            InputStream inputStreamToUse;
-            if (progressCallback != null && fileSize > 0) {
-                inputStreamToUse = new ProgressTrackingDownloadInputStream(inputStream, fileSize, progressCallback);
-            } else {
-                inputStreamToUse = inputStream;
+        long fileSize = knownFileSize;
+        if (fileSize <= 0) {
+            try {
+                fileSize = sizeOf(client, absolutePath);
+            } catch (IOException e) {
             }
-
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            boolean wasCancelled = false;
+        }
+        if (fileSize <= 0) {
             try {
-                while ((bytesRead = inputStreamToUse.read(buffer)) != -1) {
-                    fileOutputStream.write(buffer, 0, bytesRead);
+                FTPFile[] files = client.listFiles(absolutePath);
+                if (files != null && files.length > 0 && files[0].isFile()) {
+                    fileSize = files[0].getSize();
                 }
             } catch (IOException e) {
-                wasCancelled = true;
             }
+        }
 
-            if (!wasCancelled && inputStreamToUse instanceof ProgressTrackingDownloadInputStream) {
-                wasCancelled = ((ProgressTrackingDownloadInputStream) inputStreamToUse).isCancelled();
+        String remoteModified = null;
+        FtpCapabilities caps = capabilities;
+        if (!caps.isFeatSupported() || caps.supportsMdtm()) {
+            try {
+                remoteModified = client.getModificationTime(absolutePath);
+            } catch (IOException e) {
             }
+        }
 
-            if (wasCancelled) {
-                try {
-                    inputStreamToUse.close();
-                } catch (IOException e) {
-                }
-                try {
-                    fileOutputStream.close();
-                } catch (IOException e) {
-                }
-
-                try {
-                    if (localFile.exists()) {
-                        localFile.delete();
-                    }
-                } catch (Exception e) {
-                }
+        DownloadJournal journal = resume ? DownloadJournal.load(localFile) : null;
+        if (journal != null && !journal.matches(absolutePath, fileSize, remoteModified)) {
+            journal = null;
+        }
+        if (journal != null && journal.getCompletedBytes() > 0 && !supportsRestart(client)) {
+            journal = null;
+        }
 
-                abortAndReset();
-                return false;
+        if (journal == null) {
+            DownloadJournal.discard(localFile);
+            int segments = downloadSegments;
+            if (segments <= 1 || fileSize < SEGMENTED_DOWNLOAD_MIN_SIZE || !supportsRestart(client)) {
+                segments = 1;
             }
+            journal = DownloadJournal.create(localFile, absolutePath, fileSize, remoteModified, segments);
+        }
 
+        DownloadResult result = journal.getSegmentCount() > 1
+            ? downloadSegmented(client, absolutePath, journal, progressCallback)
+            : downloadSingleStream(client, absolutePath, journal, progressCallback);
 
-            inputStreamToUse.close();
-            inputStream = null;
+        if (result == DownloadResult.UNSUPPORTED) {
+            DownloadJournal.discard(localFile);
+            journal = DownloadJournal.create(localFile, absolutePath, fileSize, remoteModified, 1);
+            result = downloadSingleStream(client, absolutePath, journal, progressCallback);
+        }
 
-            fileOutputStream.close();
-            fileOutputStream = null;
+        if (result == DownloadResult.CANCELLED) {
+            fail(FtpErrorType.CANCELLED, "Download cancelled: " + absolutePath);
+            return FtpErrorType.CANCELLED;
+        }
+        if (result == DownloadResult.INTERRUPTED) {
+            return FtpErrorType.SERVER_UNAVAILABLE;
+        }
+        if (result != DownloadResult.COMPLETED) {
+            return FtpErrorType.TRANSFER_FAILED;
+        }
 
+        try {
+            journal.commit();
+        } catch (IOException e) {
+            fail(FtpErrorType.TRANSFER_FAILED, "Downloaded, but could not move file into place: " + e.getMessage());
+            return FtpErrorType.TRANSFER_FAILED;
+        }
+        return FtpErrorType.NONE;
+    }
 
-            success = ftpClient.completePendingCommand();
-            int replyCode = ftpClient.getReplyCode();
-            String replyString = ftpClient.getReplyString();
+    private enum DownloadResult {
+        COMPLETED,
+        FAILED,
+        INTERRUPTED,
+        CANCELLED,
+        UNSUPPORTED
+    }
 
-            if (success && FTPReply.isPositiveCompletion(replyCode)) {
-                return true;
-            } else {
-                return false;
+    private DownloadResult downloadSingleStream(FTPClient client, String remotePath, DownloadJournal journal,
+                                                DownloadProgressCallback progressCallback) throws IOException {
+        TransferMeter progress = track(new TransferMeter(journal.getRemoteSize(), journal.getCompletedBytes(),
+            progressCallback == null ? null : progressCallback::onProgress, openThrottle(null)));
+        AtomicBoolean restRejected = new AtomicBoolean(false);
+
+        boolean completed = false;
+        try (RandomAccessFile raf = new RandomAccessFile(journal.getPartFile(), "rw")) {
+            FileChannel channel = raf.getChannel();
+            journal.save();
+            completed = downloadRange(client, remotePath, channel, journal, 0, progress, restRejected);
+            if (completed) {
+                channel.truncate(journal.getSegmentDone(0));
             }
-
-        } catch (IOException e) {
-            disconnectSilently();
-            return false;
-        } finally {
-            try {
-                if (inputStream != null) {
-                    inputStream.close();
-                }
-                if (fileOutputStream != null) {
-                    fileOutputStream.close();
-                }
-            } catch (IOException e) {
+        } catch (RangeRejectedException e) {
+            if (restRejected.get()) {
+                restartSupported = false;
+                return DownloadResult.UNSUPPORTED;
             }
+            String rep = replySummary(client);
+            FtpErrorType t = mapReplyForPath(rep);
+            fail(t == FtpErrorType.UNKNOWN ? FtpErrorType.TRANSFER_FAILED : t, "Failed to download " + remotePath + " (" + rep + ")");
+            return DownloadResult.FAILED;
+        } catch (IOException e) {
+            fail(FtpErrorType.SERVER_UNAVAILABLE, "Download interrupted, it can be resumed: " + e.getMessage());
+            abortAndReset(client);
+            return DownloadResult.INTERRUPTED;
         }
-    }
-
-    private static class ProgressTrackingDownloadInputStream extends InputStream {
-        private final InputStream delegate;
-        private final long totalBytes;
-        private final DownloadProgressCallback callback;
-        private long bytesRead = 0;
-        private long lastUpdateTime = System.currentTimeMillis();
-        private long lastBytesRead = 0;
-        private double lastSpeed = 0.0;
-        private volatile boolean cancelled = false;
 
-        public ProgressTrackingDownloadInputStream(InputStream delegate, long totalBytes, DownloadProgressCallback callback) {
-            this.delegate = delegate;
-            this.totalBytes = totalBytes;
-            this.callback = callback;
+        if (!completed) {
+            abortAndReset(client);
+            return DownloadResult.CANCELLED;
         }
+        progress.report(true);
+        observeThroughput(progress, 1);
+        return DownloadResult.COMPLETED;
+    }
 
-        public boolean isCancelled() {
-            return cancelled;
+    private DownloadResult downloadSegmented(FTPClient client, String remotePath, DownloadJournal journal,
+                                             DownloadProgressCallback progressCallback) throws IOException {
+        int segments = journal.getSegmentCount();
+        ConcurrentLinkedQueue<Integer> pending = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < segments; i++) {
+            if (journal.getSegmentDone(i) < journal.getSegmentEnd(i)) {
+                pending.add(i);
+            }
         }
 
-        @Override
-        public int read() throws IOException {
-            int result = delegate.read();
-            if (result != -1) {
-                bytesRead++;
-                updateProgress();
+        // Servers often cap connections per user, so run the segments over the caller's session plus whatever the pool can spare.
+        List<FTPClient> sessions = new ArrayList<>();
+        while (sessions.size() < pending.size() - 1) {
+            FTPClient session = tryLeaseSession(FtpSessionPool.Lane.BULK);
+            if (session == null) {
+                break;
             }
-            return result;
+            sessions.add(session);
+        }
+        if (sessions.isEmpty() && journal.getCompletedBytes() == 0) {
+            return DownloadResult.UNSUPPORTED;
         }
 
-        @Override
-        public int read(byte[] b, int off, int len) throws IOException {
-            if (cancelled) {
-                return -1;
+        TransferMeter progress = track(new TransferMeter(journal.getRemoteSize(), journal.getCompletedBytes(),
+            progressCallback == null ? null : progressCallback::onProgress, openThrottle(null)));
+        AtomicBoolean restRejected = new AtomicBoolean(false);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        AtomicReference<String> failureMessage = new AtomicReference<>("");
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, sessions.size()));
+        try (RandomAccessFile raf = new RandomAccessFile(journal.getPartFile(), "rw")) {
+            if (raf.length() != journal.getRemoteSize()) {
+                raf.setLength(journal.getRemoteSize());
             }
+            FileChannel channel = raf.getChannel();
+            journal.save();
 
-            int result = delegate.read(b, off, len);
-            if (result > 0) {
-                bytesRead += result;
-                if (!updateProgress(false)) {
-                    cancelled = true;
+            List<Future<?>> futures = new ArrayList<>();
+            for (FTPClient session : sessions) {
+                futures.add(executor.submit(() -> {
+                    boolean reusable = false;
                     try {
-                        delegate.close();
+                        reusable = downloadSegments(pending, session, remotePath, channel, journal, progress, restRejected);
                     } catch (IOException e) {
+                        if (failed.compareAndSet(false, true)) {
+                            failureMessage.set(e.getMessage());
+                        }
+                        progress.abort();
+                    } finally {
+                        releaseSession(session, !reusable);
                     }
-                    return -1;
-                }
-            } else if (result == -1) {
-                if (bytesRead > 0) {
-                    updateProgress(true);
-                }
+                    return null;
+                }));
             }
-            return result;
-        }
-
-        private boolean updateProgress() {
-            return updateProgress(false);
-        }
-
-
-        private boolean updateProgress(boolean force) {
-            long currentTime = System.currentTimeMillis();
-            long timeDelta = currentTime - lastUpdateTime;
-            long bytesDelta = bytesRead - lastBytesRead;
-
-            boolean shouldUpdate = force ||
-                                   timeDelta >= 100 ||
-                                   bytesDelta >= 4096 ||
-                                   (bytesRead > 0 && lastBytesRead == 0);
+            sessions.clear();
 
-            if (shouldUpdate) {
-                double speedBytesPerSecond = lastSpeed;
-                if (timeDelta > 0 && bytesDelta > 0) {
-                    speedBytesPerSecond = (bytesDelta * 1000.0) / timeDelta;
-                    lastSpeed = speedBytesPerSecond;
-                } else if (bytesRead > 0 && lastBytesRead == 0) {
-                    speedBytesPerSecond = 0.0;
+            boolean clientReusable = false;
+            try {
+                clientReusable = downloadSegments(pending, client, remotePath, channel, journal, progress, restRejected);
+            } catch (IOException e) {
+                if (failed.compareAndSet(false, true)) {
+                    failureMessage.set(e.getMessage());
+                }
+                progress.abort();
+            } finally {
+                if (!clientReusable) {
+                    markBroken(client);
                 }
+            }
 
+            for (Future<?> future : futures) {
                 try {
-                    boolean shouldContinue = callback.onProgress(bytesRead, totalBytes, speedBytesPerSecond);
-                    if (!shouldContinue) {
-                        return false;
-                    }
-                } catch (Exception e) {
+                    future.get();
+                } catch (ExecutionException e) {
+                    failed.set(true);
+                    progress.abort();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    progress.abort();
                 }
-
-                lastUpdateTime = currentTime;
-                lastBytesRead = bytesRead;
             }
-            return true;
-        }
 
-        @Override
-        public void close() throws IOException {
-            if (bytesRead > 0) {
-                updateProgress(true);
+            if (!progress.isStopped() && !pending.isEmpty() && failed.compareAndSet(false, true)) {
+                failureMessage.set("lost every session before all segments finished");
+            }
+        } finally {
+            executor.shutdownNow();
+            for (FTPClient session : sessions) {
+                releaseSession(session);
             }
-            delegate.close();
         }
 
-        @Override
-        public int available() throws IOException {
-            return delegate.available();
+        if (progress.isCancelled()) {
+            return DownloadResult.CANCELLED;
+        }
+        if (!failed.get()) {
+            progress.report(true);
+            observeThroughput(progress, segments);
+            return DownloadResult.COMPLETED;
+        }
+        if (restRejected.get()) {
+            restartSupported = false;
+            return DownloadResult.UNSUPPORTED;
         }
+        fail(FtpErrorType.SERVER_UNAVAILABLE, "Segmented download failed, it can be resumed: " + failureMessage.get());
+        return DownloadResult.INTERRUPTED;
     }
 
-    private static class ProgressTrackingOutputStream extends OutputStream {
-        private final OutputStream delegate;
-        private final long totalBytes;
-        private final DownloadProgressCallback callback;
-        private long bytesWritten = 0;
-        private long lastUpdateTime = System.currentTimeMillis();
-        private long lastBytesWritten = 0;
-
-        public ProgressTrackingOutputStream(OutputStream delegate, long totalBytes, DownloadProgressCallback callback) {
-            this.delegate = delegate;
-            this.totalBytes = totalBytes;
-            this.callback = callback;
+    private boolean downloadSegments(ConcurrentLinkedQueue<Integer> pending, FTPClient session, String remotePath,
+                                     FileChannel channel, DownloadJournal journal, TransferMeter progress,
+                                     AtomicBoolean restRejected) throws IOException {
+        Integer segment;
+        while (!progress.isStopped() && (segment = pending.poll()) != null) {
+            if (!downloadRange(session, remotePath, channel, journal, segment, progress, restRejected)) {
+                return false;
+            }
+            if (journal.getSegmentEnd(segment) != journal.getRemoteSize() && !abortRange(session)) {
+                return false;
+            }
         }
+        return true;
+    }
 
-        @Override
-        public void write(int b) throws IOException {
-            delegate.write(b);
-            bytesWritten++;
-            updateProgress();
+    // The server is still sending past the end of the range; abort the RETR so the session can take the next segment.
+    private boolean abortRange(FTPClient client) {
+        try {
+            client.abort();
+            client.completePendingCommand();
+            return client.sendNoOp();
+        } catch (IOException e) {
+            return false;
         }
+    }
 
-        @Override
-        public void write(byte[] b, int off, int len) throws IOException {
-            delegate.write(b, off, len);
-            bytesWritten += len;
-            updateProgress(false);
+    private FTPClient tryLeaseSession(FtpSessionPool.Lane lane) {
+        FtpSessionPool pool = sessionPool;
+        if (pool == null || !connected) {
+            return null;
         }
+        try {
+            FTPClient client = pool.tryLease(worker ? FtpSessionPool.Lane.BULK : lane);
+            if (client != null) {
+                activeSessions.put(client, Thread.currentThread());
+            }
+            return client;
+        } catch (IOException e) {
+            return null;
+        }
+    }
 
-        @Override
-        public void flush() throws IOException {
-            delegate.flush();
+    private boolean downloadRange(FTPClient client, String remotePath, FileChannel channel, DownloadJournal journal, int segment,
+                                  TransferMeter progress, AtomicBoolean restRejected) throws IOException {
+        if (nioTransfers) {
+            SocketChannel dataChannel = openDataChannel(client);
+            if (dataChannel != null) {
+                return downloadRangeViaChannel(client, dataChannel, remotePath, channel, journal, segment, progress, restRejected);
+            }
         }
 
-        @Override
-        public void close() throws IOException {
-            if (bytesWritten > 0) {
-                updateProgress(true);
+        long position = journal.getSegmentDone(segment);
+        long end = journal.getSegmentEnd(segment);
+        boolean lastSegment = end < 0 || end == journal.getRemoteSize();
+
+        client.setRestartOffset(position);
+        InputStream in = client.retrieveFileStream(remotePath);
+        if (in == null) {
+            int code = client.getReplyCode();
+            if (position > 0 && (code == 500 || code == 501 || code == 502 || code == 504)) {
+                restRejected.set(true);
             }
-            delegate.close();
+            throw new RangeRejectedException("Range " + position + "-" + end + " rejected (" + client.getReplyString().trim() + ")");
         }
 
-        private void updateProgress() {
-            updateProgress(false);
+        long lastCheckpoint = position;
+        progress.attach(in);
+        try {
+            byte[] buffer = new byte[transferConfig.getBufferSize()];
+            while ((end < 0 || position < end) && !progress.isStopped()) {
+                int toRead = end < 0 ? buffer.length : (int) Math.min(buffer.length, end - position);
+                int bytesRead = in.read(buffer, 0, toRead);
+                if (bytesRead == -1) {
+                    break;
+                }
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, bytesRead);
+                while (chunk.hasRemaining()) {
+                    position += channel.write(chunk, position);
+                }
+                progress.add(bytesRead);
+                keepAlive(client);
+
+                if (position - lastCheckpoint >= JOURNAL_CHECKPOINT_BYTES) {
+                    channel.force(false);
+                    journal.checkpoint(segment, position);
+                    lastCheckpoint = position;
+                }
+            }
+
+            if (progress.isStopped()) {
+                return false;
+            }
+            if (end >= 0 && position < end) {
+                throw new IOException("Range " + journal.getSegmentDone(segment) + "-" + end + " ended early at " + position);
+            }
+            if (lastSegment) {
+                progress.detach(in);
+                in.close();
+                in = null;
+                if (!client.completePendingCommand()) {
+                    throw new IOException("Transfer failed (" + client.getReplyString().trim() + ")");
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            if (progress.isStopped()) {
+                return false;
+            }
+            throw e;
+        } finally {
+            if (in != null) {
+                progress.detach(in);
+                try {
+                    in.close();
+                } catch (IOException e) {
+                }
+            }
+            if (position > lastCheckpoint) {
+                try {
+                    channel.force(false);
+                    journal.checkpoint(segment, position);
+                } catch (IOException e) {
+                }
+            }
         }
+    }
 
-        private void updateProgress(boolean force) {
-            long currentTime = System.currentTimeMillis();
-            long timeDelta = currentTime - lastUpdateTime;
-            long bytesDelta = bytesWritten - lastBytesWritten;
+    private boolean downloadRangeViaChannel(FTPClient client, SocketChannel dataChannel, String remotePath, FileChannel channel,
+                                            DownloadJournal journal, int segment, TransferMeter progress,
+                                            AtomicBoolean restRejected) throws IOException {
+        long start = journal.getSegmentDone(segment);
+        long end = journal.getSegmentEnd(segment);
+        boolean lastSegment = end < 0 || end == journal.getRemoteSize();
+        long[] lastCheckpoint = {start};
+        long position = start;
 
-            boolean shouldUpdate = force ||
-                                   timeDelta >= 50 ||
-                                   bytesDelta >= 2048 ||
-                                   (bytesWritten > 0 && lastBytesWritten == 0);
+        progress.attach(dataChannel);
+        try {
+            if (start > 0) {
+                int restReply = client.sendCommand("REST", String.valueOf(start));
+                if (!FTPReply.isPositiveIntermediate(restReply)) {
+                    if (restReply >= 500 && restReply <= 504) {
+                        restRejected.set(true);
+                    }
+                    throw new RangeRejectedException("Range " + start + "-" + end + " rejected (" + client.getReplyString().trim() + ")");
+                }
+            }
+            int reply = client.sendCommand("RETR", remotePath);
+            if (!FTPReply.isPositivePreliminary(reply)) {
+                throw new RangeRejectedException("Range " + start + "-" + end + " rejected (" + client.getReplyString().trim() + ")");
+            }
 
-            if (shouldUpdate) {
-                double speedBytesPerSecond = timeDelta > 0 ? (bytesDelta * 1000.0) / timeDelta : 0.0;
+            ByteBuffer buffer = bufferPool.acquire();
+            try {
+                position = FtpDataChannel.receive(dataChannel, channel, start, end, buffer, SOCKET_TIMEOUT_MS, (pos, bytes) -> {
+                    progress.add(bytes);
+                    keepAlive(client);
+                    if (pos - lastCheckpoint[0] >= JOURNAL_CHECKPOINT_BYTES) {
+                        channel.force(false);
+                        journal.checkpoint(segment, pos);
+                        lastCheckpoint[0] = pos;
+                    }
+                    return !progress.isStopped();
+                });
+            } finally {
+                bufferPool.release(buffer);
+            }
 
+            if (progress.isStopped()) {
+                return false;
+            }
+            if (end >= 0 && position < end) {
+                throw new IOException("Range " + start + "-" + end + " ended early at " + position);
+            }
+            if (lastSegment) {
+                dataChannel.close();
+                if (!client.completePendingCommand()) {
+                    throw new IOException("Transfer failed (" + client.getReplyString().trim() + ")");
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            if (progress.isStopped()) {
+                return false;
+            }
+            throw e;
+        } finally {
+            progress.detach(dataChannel);
+            try {
+                dataChannel.close();
+            } catch (IOException e) {
+            }
+            if (position > lastCheckpoint[0]) {
                 try {
-                    callback.onProgress(bytesWritten, totalBytes, speedBytesPerSecond);
-                } catch (Exception e) {
+                    channel.force(false);
+                    journal.checkpoint(segment, position);
+                } catch (IOException e) {
                 }
-
-                lastUpdateTime = currentTime;
-                lastBytesWritten = bytesWritten;
             }
         }
     }
 
-    public FTPClient getFtpClient() {
-        return ftpClient;
+    private static class RangeRejectedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        RangeRejectedException(String message) {
+            super(message);
+        }
     }
 }
 
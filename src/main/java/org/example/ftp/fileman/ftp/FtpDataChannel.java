@@ -0,0 +1,154 @@
+package org.example.ftp.fileman.ftp;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPReply;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+final class FtpDataChannel {
+
+    private static final Pattern PASV_PATTERN =
+        Pattern.compile("\\((\\d+),(\\d+),(\\d+),(\\d+),(\\d+),(\\d+)\\)");
+    private static final Pattern EPSV_PATTERN =
+        Pattern.compile("\\((.)\\1\\1(\\d+)\\1\\)");
+    private static final long POLL_INTERVAL_MS = 100;
+
+    @FunctionalInterface
+    interface ChunkListener {
+        boolean onChunk(long position, long bytes) throws IOException;
+    }
+
+    private FtpDataChannel() {
+    }
+
+    static SocketChannel openPassive(FTPClient client, boolean extended, int timeoutMs, int sendBufferSize,
+                                     int receiveBufferSize) throws IOException {
+        String ip;
+        int port;
+        if (extended && FTPReply.isPositiveCompletion(client.sendCommand("EPSV"))) {
+            Matcher matcher = EPSV_PATTERN.matcher(client.getReplyString());
+            if (!matcher.find()) {
+                return null;
+            }
+            ip = client.getRemoteAddress().getHostAddress();
+            port = Integer.parseInt(matcher.group(2));
+        } else {
+            int reply = client.sendCommand("PASV");
+            if (!FTPReply.isPositiveCompletion(reply)) {
+                return null;
+            }
+
+            Matcher matcher = PASV_PATTERN.matcher(client.getReplyString());
+            if (!matcher.find()) {
+                return null;
+            }
+
+            ip = matcher.group(1) + "." + matcher.group(2) + "." + matcher.group(3) + "." + matcher.group(4);
+            port = Integer.parseInt(matcher.group(5)) * 256 + Integer.parseInt(matcher.group(6));
+        }
+
+        SocketChannel channel = SocketChannel.open();
+        try {
+            if (sendBufferSize > 0) {
+                channel.setOption(StandardSocketOptions.SO_SNDBUF, sendBufferSize);
+            }
+            if (receiveBufferSize > 0) {
+                channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+            }
+            channel.socket().connect(new InetSocketAddress(ip, port), timeoutMs);
+            channel.socket().setSoTimeout(timeoutMs);
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static long receive(SocketChannel source, FileChannel target, long position, long end, ByteBuffer buffer, int timeoutMs,
+                        ChunkListener listener) throws IOException {
+        source.configureBlocking(false);
+        try (Selector selector = Selector.open()) {
+            source.register(selector, SelectionKey.OP_READ);
+            while (end < 0 || position < end) {
+                buffer.clear();
+                if (end >= 0 && end - position < buffer.capacity()) {
+                    buffer.limit((int) (end - position));
+                }
+                int read = source.read(buffer);
+                if (read < 0) {
+                    break;
+                }
+                if (read == 0) {
+                    await(selector, source, timeoutMs);
+                    continue;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    position += target.write(buffer, position);
+                }
+                if (!listener.onChunk(position, read)) {
+                    break;
+                }
+            }
+        }
+        return position;
+    }
+
+    static long send(FileChannel source, long position, long end, SocketChannel target, long chunkSize, int timeoutMs,
+                     ChunkListener listener) throws IOException {
+        target.configureBlocking(false);
+        try (Selector selector = Selector.open()) {
+            target.register(selector, SelectionKey.OP_WRITE);
+            while (position < end) {
+                long transferred = source.transferTo(position, Math.min(chunkSize, end - position), target);
+                if (transferred <= 0) {
+                    if (position >= source.size()) {
+                        break;
+                    }
+                    await(selector, target, timeoutMs);
+                    continue;
+                }
+                position += transferred;
+                if (!listener.onChunk(position, transferred)) {
+                    break;
+                }
+            }
+        }
+        return position;
+    }
+
+    // Blocking channel I/O ignores SO_TIMEOUT, so stalls are detected here; the short poll also notices a channel
+    // closed from another thread, which a registered channel does not report to a sleeping selector.
+    private static void await(Selector selector, SocketChannel channel, int timeoutMs) throws IOException {
+        long deadline = System.nanoTime() + timeoutMs * 1_000_000L;
+        while (true) {
+            long remainingMs = (deadline - System.nanoTime()) / 1_000_000L;
+            if (remainingMs <= 0) {
+                throw new SocketTimeoutException("Data connection stalled for " + timeoutMs + " ms");
+            }
+            int ready = selector.select(Math.min(remainingMs, POLL_INTERVAL_MS));
+            selector.selectedKeys().clear();
+            if (!channel.isOpen()) {
+                throw new AsynchronousCloseException();
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Transfer interrupted");
+            }
+            if (ready > 0) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package org.example.ftp.fileman.ftp;
+
+import org.apache.commons.net.ftp.FTPClient;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+public class FtpSessionPool {
+
+    public static final int DEFAULT_MAX_SESSIONS = 4;
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 60_000;
+    public static final long DEFAULT_KEEPALIVE_INTERVAL_MS = 30_000;
+    public static final int INTERACTIVE_RESERVED_SESSIONS = 1;
+
+    private static final long HEALTH_CHECK_AFTER_MS = 15_000;
+    private static final long LEASE_TIMEOUT_MS = 30_000;
+    private static final int MIN_IDLE_SESSIONS = 1;
+
+    public enum Lane {
+        INTERACTIVE,
+        BULK
+    }
+
+    public interface SessionFactory {
+        FTPClient open() throws IOException;
+
+        void close(FTPClient session);
+    }
+
+    public static class PoolExhaustedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        PoolExhaustedException(String message) {
+            super(message);
+        }
+    }
+
+    private final SessionFactory factory;
+    private final Deque<IdleSession> idle = new ArrayDeque<>();
+    private final Map<FTPClient, Lane> leased = new IdentityHashMap<>();
+    private int opening = 0;
+    private int checking = 0;
+    private int interactiveWaiting = 0;
+    private int interactiveInUse = 0;
+    private int bulkInUse = 0;
+    private int maxSessions;
+    private long idleTimeoutMs;
+    private long keepAliveIntervalMs = DEFAULT_KEEPALIVE_INTERVAL_MS;
+    private boolean closed = false;
+    private boolean started = false;
+
+    public FtpSessionPool(SessionFactory factory) {
+        this(factory, DEFAULT_MAX_SESSIONS, DEFAULT_IDLE_TIMEOUT_MS);
+    }
+
+    public FtpSessionPool(SessionFactory factory, int maxSessions, long idleTimeoutMs) {
+        this.factory = factory;
+        this.maxSessions = Math.max(1, maxSessions);
+        this.idleTimeoutMs = Math.max(1000, idleTimeoutMs);
+    }
+
+    public synchronized FtpSessionPool start() {
+        if (!started && !closed) {
+            started = true;
+            Thread.ofVirtual().name("ftp-session-evictor").start(this::evictLoop);
+        }
+        return this;
+    }
+
+    public synchronized int getMaxSessions() {
+        return maxSessions;
+    }
+
+    public synchronized void setMaxSessions(int maxSessions) {
+        this.maxSessions = Math.max(1, maxSessions);
+        notifyAll();
+    }
+
+    public synchronized long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    public synchronized void setIdleTimeoutMs(long idleTimeoutMs) {
+        this.idleTimeoutMs = Math.max(1000, idleTimeoutMs);
+    }
+
+    public synchronized long getKeepAliveIntervalMs() {
+        return keepAliveIntervalMs;
+    }
+
+    public synchronized void setKeepAliveIntervalMs(long keepAliveIntervalMs) {
+        this.keepAliveIntervalMs = Math.max(0, keepAliveIntervalMs);
+    }
+
+    public synchronized int getOpenSessions() {
+        return idle.size() + leased.size() + opening + checking;
+    }
+
+    public synchronized int getIdleSessions() {
+        return idle.size();
+    }
+
+    public synchronized boolean hasInteractiveDemand() {
+        return interactiveWaiting > 0 || interactiveInUse > 0;
+    }
+
+    public synchronized boolean awaitInteractiveIdle(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!closed && (interactiveWaiting > 0 || interactiveInUse > 0)) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    public FTPClient lease() throws IOException {
+        return lease(Lane.BULK);
+    }
+
+    public FTPClient lease(Lane lane) throws IOException {
+        long deadline = System.currentTimeMillis() + LEASE_TIMEOUT_MS;
+        while (true) {
+            IdleSession candidate;
+            synchronized (this) {
+                if (lane == Lane.INTERACTIVE) {
+                    interactiveWaiting++;
+                }
+                try {
+                    candidate = reserve(lane, deadline);
+                } finally {
+                    if (lane == Lane.INTERACTIVE) {
+                        interactiveWaiting--;
+                        notifyAll();
+                    }
+                }
+            }
+
+            if (candidate == null) {
+                return openSession(lane);
+            }
+            if (isHealthy(candidate)) {
+                return candidate.client;
+            }
+            invalidate(candidate.client);
+        }
+    }
+
+    public FTPClient tryLease(Lane lane) throws IOException {
+        while (true) {
+            IdleSession candidate;
+            synchronized (this) {
+                if (closed) {
+                    throw new IOException("Not connected");
+                }
+                if (isDeferred(lane)) {
+                    return null;
+                }
+                candidate = idle.pollFirst();
+                if (candidate != null) {
+                    leased.put(candidate.client, lane);
+                } else if (getOpenSessions() < maxSessions) {
+                    opening++;
+                } else {
+                    return null;
+                }
+                acquired(lane);
+            }
+
+            if (candidate == null) {
+                return openSession(lane);
+            }
+            if (isHealthy(candidate)) {
+                return candidate.client;
+            }
+            invalidate(candidate.client);
+        }
+    }
+
+    private IdleSession reserve(Lane lane, long deadline) throws IOException {
+        while (true) {
+            if (closed) {
+                throw new IOException("Not connected");
+            }
+            if (!isDeferred(lane)) {
+                IdleSession candidate = idle.pollFirst();
+                if (candidate != null) {
+                    leased.put(candidate.client, lane);
+                    acquired(lane);
+                    return candidate;
+                }
+                if (getOpenSessions() < maxSessions) {
+                    opening++;
+                    acquired(lane);
+                    return null;
+                }
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new PoolExhaustedException("All " + maxSessions + " FTP sessions are busy");
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for an FTP session");
+            }
+        }
+    }
+
+    private boolean isDeferred(Lane lane) {
+        return lane == Lane.BULK && (interactiveWaiting > 0 || bulkInUse >= bulkCapacity());
+    }
+
+    private int bulkCapacity() {
+        return maxSessions > INTERACTIVE_RESERVED_SESSIONS ? maxSessions - INTERACTIVE_RESERVED_SESSIONS : maxSessions;
+    }
+
+    private void acquired(Lane lane) {
+        if (lane == Lane.INTERACTIVE) {
+            interactiveInUse++;
+        } else {
+            bulkInUse++;
+        }
+    }
+
+    private void returned(Lane lane) {
+        if (lane == Lane.INTERACTIVE) {
+            interactiveInUse--;
+        } else {
+            bulkInUse--;
+        }
+    }
+
+    public boolean release(FTPClient client) {
+        if (client == null) {
+            return true;
+        }
+        boolean close;
+        synchronized (this) {
+            Lane lane = leased.remove(client);
+            if (lane == null) {
+                return false;
+            }
+            returned(lane);
+            close = closed || !client.isConnected() || getOpenSessions() >= maxSessions;
+            if (!close) {
+                idle.addFirst(new IdleSession(client, System.currentTimeMillis()));
+            }
+            notifyAll();
+        }
+        if (close) {
+            factory.close(client);
+        }
+        return true;
+    }
+
+    public boolean invalidate(FTPClient client) {
+        if (client == null) {
+            return true;
+        }
+        synchronized (this) {
+            Lane lane = leased.remove(client);
+            if (lane == null) {
+                return false;
+            }
+            returned(lane);
+            notifyAll();
+        }
+        factory.close(client);
+        return true;
+    }
+
+    public void adopt(FTPClient client) {
+        boolean close;
+        synchronized (this) {
+            close = closed;
+            if (!close) {
+                idle.addFirst(new IdleSession(client, System.currentTimeMillis()));
+                notifyAll();
+            }
+        }
+        if (close) {
+            factory.close(client);
+        }
+    }
+
+    public void evictIdle() {
+        List<FTPClient> expired = new ArrayList<>();
+        synchronized (this) {
+            long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+            Iterator<IdleSession> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() > MIN_IDLE_SESSIONS) {
+                IdleSession session = it.next();
+                if (session.idleSince < cutoff) {
+                    it.remove();
+                    expired.add(session.client);
+                }
+            }
+        }
+        for (FTPClient client : expired) {
+            factory.close(client);
+        }
+    }
+
+    public void keepAliveIdle() {
+        List<IdleSession> due = new ArrayList<>();
+        synchronized (this) {
+            if (keepAliveIntervalMs <= 0) {
+                return;
+            }
+            long cutoff = System.currentTimeMillis() - keepAliveIntervalMs;
+            Iterator<IdleSession> it = idle.iterator();
+            while (it.hasNext()) {
+                IdleSession session = it.next();
+                if (session.lastChecked < cutoff) {
+                    it.remove();
+                    due.add(session);
+                }
+            }
+            checking += due.size();
+        }
+
+        for (IdleSession session : due) {
+            boolean alive;
+            try {
+                alive = session.client.sendNoOp();
+            } catch (IOException e) {
+                alive = false;
+            }
+            boolean close;
+            synchronized (this) {
+                checking--;
+                close = closed || !alive;
+                if (!close) {
+                    session.lastChecked = System.currentTimeMillis();
+                    idle.addLast(session);
+                }
+                notifyAll();
+            }
+            if (close) {
+                factory.close(session.client);
+            }
+        }
+    }
+
+    public void close() {
+        List<FTPClient> sessions = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            for (IdleSession session : idle) {
+                sessions.add(session.client);
+            }
+            idle.clear();
+            notifyAll();
+        }
+        for (FTPClient client : sessions) {
+            factory.close(client);
+        }
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private FTPClient openSession(Lane lane) throws IOException {
+        FTPClient client;
+        try {
+            client = factory.open();
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                opening--;
+                returned(lane);
+                notifyAll();
+            }
+            throw e;
+        }
+        boolean close;
+        synchronized (this) {
+            opening--;
+            close = closed;
+            if (close) {
+                returned(lane);
+                notifyAll();
+            } else {
+                leased.put(client, lane);
+            }
+        }
+        if (close) {
+            factory.close(client);
+            throw new IOException("Not connected");
+        }
+        return client;
+    }
+
+    private boolean isHealthy(IdleSession session) {
+        if (!session.client.isConnected()) {
+            return false;
+        }
+        if (System.currentTimeMillis() - session.lastChecked < HEALTH_CHECK_AFTER_MS) {
+            return true;
+        }
+        try {
+            return session.client.sendNoOp();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void evictLoop() {
+        while (!isClosed()) {
+            try {
+                Thread.sleep(maintenanceIntervalMs());
+            } catch (InterruptedException e) {
+                return;
+            }
+            evictIdle();
+            keepAliveIdle();
+        }
+    }
+
+    private synchronized long maintenanceIntervalMs() {
+        long interval = idleTimeoutMs / 2;
+        if (keepAliveIntervalMs > 0) {
+            interval = Math.min(interval, keepAliveIntervalMs / 2);
+        }
+        return Math.max(1000, interval);
+    }
+
+    private static class IdleSession {
+        private final FTPClient client;
+        private final long idleSince;
+        private long lastChecked;
+
+        IdleSession(FTPClient client, long idleSince) {
+            this.client = client;
+            this.idleSince = idleSince;
+            this.lastChecked = idleSince;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.ftp.fileman.ftp;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPReply;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.List;
+
+class KeepAliveFtpClient extends FTPClient {
+
+    private static final int PIPELINE_DEPTH = 64;
+
+    private long lastControlActivity = System.currentTimeMillis();
+    private int unacknowledged = 0;
+
+    @Override
+    public int sendCommand(String command, String args) throws IOException {
+        lastControlActivity = System.currentTimeMillis();
+        return super.sendCommand(command, args);
+    }
+
+    void keepAlive() throws IOException {
+        long interval = getControlKeepAliveTimeoutDuration().toMillis();
+        long now = System.currentTimeMillis();
+        if (interval <= 0 || now - lastControlActivity < interval) {
+            return;
+        }
+        lastControlActivity = now;
+
+        int soTimeout = getSoTimeout();
+        setSoTimeout((int) Math.max(1, getControlKeepAliveReplyTimeoutDuration().toMillis()));
+        try {
+            __noop();
+        } catch (SocketTimeoutException e) {
+            unacknowledged++;
+        } finally {
+            setSoTimeout(soTimeout);
+        }
+    }
+
+    String[] pipeline(String command, List<String> arguments) throws IOException {
+        String[] replies = new String[arguments.size()];
+        int sent = 0;
+        int received = 0;
+        while (received < replies.length) {
+            int batchEnd = Math.min(replies.length, received + PIPELINE_DEPTH);
+            while (sent < batchEnd) {
+                _controlOutput_.write(command + " " + arguments.get(sent) + "\r\n");
+                sent++;
+            }
+            _controlOutput_.flush();
+            lastControlActivity = System.currentTimeMillis();
+            while (received < sent) {
+                __getReplyNoReport();
+                replies[received++] = getReplyString();
+            }
+        }
+        return replies;
+    }
+
+    @Override
+    public boolean completePendingCommand() throws IOException {
+        int pending = unacknowledged;
+        unacknowledged = 0;
+        int reply = getReply();
+        while (pending > 0 && reply == FTPReply.COMMAND_OK) {
+            pending--;
+            reply = getReply();
+        }
+        while (pending-- > 0) {
+            __getReplyNoReport();
+        }
+        return FTPReply.isPositiveCompletion(reply);
+    }
+}
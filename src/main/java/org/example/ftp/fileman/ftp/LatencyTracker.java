@@ -0,0 +1,61 @@
+package org.example.ftp.fileman.ftp;
+
+import java.util.Arrays;
+
+public class LatencyTracker {
+
+    public static final int DEFAULT_CAPACITY = 512;
+
+    private final long[] samples;
+    private int next = 0;
+    private int size = 0;
+    private long count = 0;
+
+    public LatencyTracker() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LatencyTracker(int capacity) {
+        this.samples = new long[Math.max(1, capacity)];
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = Math.max(0, nanos);
+        next = (next + 1) % samples.length;
+        if (size < samples.length) {
+            size++;
+        }
+        count++;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public double getP50Millis() {
+        return getPercentileMillis(50);
+    }
+
+    public double getP99Millis() {
+        return getPercentileMillis(99);
+    }
+
+    public double getPercentileMillis(double percentile) {
+        long[] window;
+        synchronized (this) {
+            if (size == 0) {
+                return 0.0;
+            }
+            window = Arrays.copyOf(samples, size);
+        }
+        Arrays.sort(window);
+        int rank = (int) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * window.length);
+        return window[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+
+    public synchronized void reset() {
+        next = 0;
+        size = 0;
+        count = 0;
+    }
+}
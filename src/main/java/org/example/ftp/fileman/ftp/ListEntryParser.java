@@ -0,0 +1,360 @@
+package org.example.ftp.fileman.ftp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+final class ListEntryParser {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final long FUTURE_TOLERANCE_MS = 24L * 60 * 60 * 1000;
+    private static final Calendar CALENDAR_TEMPLATE = Calendar.getInstance();
+
+    private ListEntryParser() {
+    }
+
+    static int read(InputStream in, Function<String, FtpFileInfo> parser, Consumer<FtpFileInfo> sink) throws IOException {
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        byte[] pending = new byte[256];
+        int pendingLength = 0;
+        int entries = 0;
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            int lineStart = 0;
+            for (int i = 0; i < n; i++) {
+                if (buffer[i] != '\n') {
+                    continue;
+                }
+                FtpFileInfo info;
+                if (pendingLength > 0) {
+                    pending = append(pending, pendingLength, buffer, lineStart, i - lineStart);
+                    info = parser.apply(decode(pending, 0, pendingLength + i - lineStart));
+                    pendingLength = 0;
+                } else {
+                    info = parser.apply(decode(buffer, lineStart, i - lineStart));
+                }
+                if (info != null) {
+                    sink.accept(info);
+                    entries++;
+                }
+                lineStart = i + 1;
+            }
+            if (lineStart < n) {
+                pending = append(pending, pendingLength, buffer, lineStart, n - lineStart);
+                pendingLength += n - lineStart;
+            }
+        }
+        if (pendingLength > 0) {
+            FtpFileInfo info = parser.apply(decode(pending, 0, pendingLength));
+            if (info != null) {
+                sink.accept(info);
+                entries++;
+            }
+        }
+        return entries;
+    }
+
+    private static byte[] append(byte[] target, int length, byte[] source, int offset, int count) {
+        if (length + count > target.length) {
+            target = Arrays.copyOf(target, Math.max(target.length * 2, length + count));
+        }
+        System.arraycopy(source, offset, target, length, count);
+        return target;
+    }
+
+    private static String decode(byte[] bytes, int offset, int length) {
+        if (length > 0 && bytes[offset + length - 1] == '\r') {
+            length--;
+        }
+        return new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+
+    static FtpFileInfo parse(String line) {
+        int start = skipSpaces(line, 0);
+        if (start >= line.length()) {
+            return null;
+        }
+        char first = line.charAt(start);
+        if (first == '+') {
+            return parseEplf(line, start + 1);
+        }
+        if (first >= '0' && first <= '9') {
+            return parseDos(line, start);
+        }
+        return parseUnix(line, start);
+    }
+
+    private static FtpFileInfo parseUnix(String line, int start) {
+        int permsEnd = tokenEnd(line, start);
+        if (permsEnd - start < 10) {
+            return null;
+        }
+        char type = line.charAt(start);
+        if ("-dlbcps".indexOf(type) < 0) {
+            return null;
+        }
+
+        // Owner and group columns vary between servers, so anchor on the "size month day time|year" run instead.
+        int pos = skipSpaces(line, permsEnd);
+        int previousStart = -1;
+        int previousEnd = -1;
+        while (pos < line.length()) {
+            int end = tokenEnd(line, pos);
+            int month = end - pos == 3 ? month(line, pos) : -1;
+            if (month >= 0 && previousStart >= 0 && isDigits(line, previousStart, previousEnd)) {
+                int dayStart = skipSpaces(line, end);
+                int dayEnd = tokenEnd(line, dayStart);
+                int whenStart = skipSpaces(line, dayEnd);
+                int whenEnd = tokenEnd(line, whenStart);
+                int day = number(line, dayStart, dayEnd);
+                if (day >= 1 && day <= 31 && whenEnd > whenStart && whenEnd < line.length()) {
+                    Calendar timestamp = unixTimestamp(line, month, day, whenStart, whenEnd);
+                    if (timestamp != null) {
+                        String name = line.substring(whenEnd + 1);
+                        if (type == 'l') {
+                            int arrow = name.indexOf(" -> ");
+                            if (arrow > 0) {
+                                name = name.substring(0, arrow);
+                            }
+                        }
+                        return entry(name, type == 'd', parseLong(line, previousStart, previousEnd), timestamp);
+                    }
+                }
+            }
+            previousStart = pos;
+            previousEnd = end;
+            pos = skipSpaces(line, end);
+        }
+        return null;
+    }
+
+    private static Calendar unixTimestamp(String line, int month, int day, int start, int end) {
+        Calendar timestamp = newCalendar();
+        int colon = line.indexOf(':', start);
+        if (colon > start && colon < end) {
+            int hour = number(line, start, colon);
+            int minute = number(line, colon + 1, end);
+            if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+                return null;
+            }
+            long now = timestamp.getTimeInMillis();
+            int year = timestamp.get(Calendar.YEAR);
+            timestamp.clear();
+            timestamp.set(year, month, day, hour, minute, 0);
+            if (timestamp.getTimeInMillis() - now > FUTURE_TOLERANCE_MS) {
+                timestamp.add(Calendar.YEAR, -1);
+            }
+            return timestamp;
+        }
+        timestamp.clear();
+        int year = number(line, start, end);
+        if (year < 1970 || end - start != 4) {
+            return null;
+        }
+        timestamp.set(year, month, day, 0, 0, 0);
+        return timestamp;
+    }
+
+    private static FtpFileInfo parseDos(String line, int start) {
+        int dateEnd = tokenEnd(line, start);
+        if (dateEnd - start != 8 && dateEnd - start != 10) {
+            return null;
+        }
+        int month = number(line, start, start + 2);
+        int day = number(line, start + 3, start + 5);
+        int year = number(line, start + 6, dateEnd);
+        if (month < 1 || month > 12 || day < 1 || day > 31 || year < 0) {
+            return null;
+        }
+        if (dateEnd - start == 8) {
+            year += year < 70 ? 2000 : 1900;
+        }
+
+        int timeStart = skipSpaces(line, dateEnd);
+        int timeEnd = tokenEnd(line, timeStart);
+        int colon = line.indexOf(':', timeStart);
+        if (colon < 0 || colon >= timeEnd) {
+            return null;
+        }
+        int hour = number(line, timeStart, colon);
+        int minuteEnd = colon + 3;
+        if (minuteEnd > timeEnd) {
+            return null;
+        }
+        int minute = number(line, colon + 1, minuteEnd);
+        if (hour < 0 || minute < 0) {
+            return null;
+        }
+        if (timeEnd - minuteEnd == 2) {
+            char meridiem = Character.toUpperCase(line.charAt(minuteEnd));
+            if (meridiem == 'P' && hour < 12) {
+                hour += 12;
+            } else if (meridiem == 'A' && hour == 12) {
+                hour = 0;
+            }
+        }
+
+        int sizeStart = skipSpaces(line, timeEnd);
+        int sizeEnd = tokenEnd(line, sizeStart);
+        int nameStart = skipSpaces(line, sizeEnd);
+        if (nameStart >= line.length()) {
+            return null;
+        }
+        boolean isDir = line.regionMatches(true, sizeStart, "<DIR>", 0, 5) && sizeEnd - sizeStart == 5;
+        long size = 0;
+        if (!isDir) {
+            size = parseLong(line, sizeStart, sizeEnd);
+            if (size < 0) {
+                return null;
+            }
+        }
+
+        Calendar timestamp = newCalendar();
+        timestamp.clear();
+        timestamp.set(year, month - 1, day, hour, minute, 0);
+        return entry(line.substring(nameStart), isDir, size, timestamp);
+    }
+
+    private static FtpFileInfo parseEplf(String line, int start) {
+        int tab = line.indexOf('\t', start);
+        if (tab < 0 || tab == line.length() - 1) {
+            return null;
+        }
+        boolean isDir = false;
+        long size = 0;
+        Calendar timestamp = null;
+        int pos = start;
+        while (pos < tab) {
+            int comma = line.indexOf(',', pos);
+            if (comma < 0 || comma > tab) {
+                comma = tab;
+            }
+            if (comma > pos) {
+                char fact = line.charAt(pos);
+                if (fact == '/') {
+                    isDir = true;
+                } else if (fact == 's') {
+                    size = Math.max(0, parseLong(line, pos + 1, comma));
+                } else if (fact == 'm') {
+                    long seconds = parseLong(line, pos + 1, comma);
+                    if (seconds >= 0) {
+                        timestamp = newCalendar();
+                        timestamp.setTimeInMillis(seconds * 1000);
+                    }
+                }
+            }
+            pos = comma + 1;
+        }
+        return entry(line.substring(tab + 1), isDir, size, timestamp);
+    }
+
+    private static Calendar newCalendar() {
+        Calendar calendar = (Calendar) CALENDAR_TEMPLATE.clone();
+        calendar.setTimeInMillis(System.currentTimeMillis());
+        return calendar;
+    }
+
+    private static FtpFileInfo entry(String name, boolean isDir, long size, Calendar timestamp) {
+        if (name.isEmpty() || name.equals(".") || name.equals("..")) {
+            return null;
+        }
+        return new FtpFileInfo(name, isDir, Math.max(0, size), timestamp);
+    }
+
+    private static int month(String line, int pos) {
+        char a = Character.toLowerCase(line.charAt(pos));
+        char b = Character.toLowerCase(line.charAt(pos + 1));
+        char c = Character.toLowerCase(line.charAt(pos + 2));
+        switch (a) {
+            case 'j':
+                if (b == 'a' && c == 'n') return Calendar.JANUARY;
+                if (b == 'u' && c == 'n') return Calendar.JUNE;
+                if (b == 'u' && c == 'l') return Calendar.JULY;
+                return -1;
+            case 'f':
+                return b == 'e' && c == 'b' ? Calendar.FEBRUARY : -1;
+            case 'm':
+                if (b == 'a' && c == 'r') return Calendar.MARCH;
+                if (b == 'a' && c == 'y') return Calendar.MAY;
+                return -1;
+            case 'a':
+                if (b == 'p' && c == 'r') return Calendar.APRIL;
+                if (b == 'u' && c == 'g') return Calendar.AUGUST;
+                return -1;
+            case 's':
+                return b == 'e' && c == 'p' ? Calendar.SEPTEMBER : -1;
+            case 'o':
+                return b == 'c' && c == 't' ? Calendar.OCTOBER : -1;
+            case 'n':
+                return b == 'o' && c == 'v' ? Calendar.NOVEMBER : -1;
+            case 'd':
+                return b == 'e' && c == 'c' ? Calendar.DECEMBER : -1;
+            default:
+                return -1;
+        }
+    }
+
+    private static int skipSpaces(String line, int pos) {
+        while (pos < line.length() && (line.charAt(pos) == ' ' || line.charAt(pos) == '\t')) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int tokenEnd(String line, int pos) {
+        while (pos < line.length() && line.charAt(pos) != ' ' && line.charAt(pos) != '\t') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isDigits(String line, int start, int end) {
+        if (start >= end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int number(String line, int start, int end) {
+        if (start >= end || end - start > 9) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static long parseLong(String line, int start, int end) {
+        if (start >= end) {
+            return -1;
+        }
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (c == ',') {
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
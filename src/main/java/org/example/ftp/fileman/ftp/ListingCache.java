@@ -0,0 +1,183 @@
+package org.example.ftp.fileman.ftp;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ListingCache {
+
+    public static final long DEFAULT_TTL_MS = 30_000;
+    public static final int DEFAULT_MAX_DIRECTORIES = 256;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private volatile long ttlMs;
+    private volatile int maxDirectories;
+    private long hits = 0;
+    private long misses = 0;
+    private long version = 0;
+    private String scope;
+
+    public ListingCache() {
+        this(DEFAULT_TTL_MS, DEFAULT_MAX_DIRECTORIES);
+    }
+
+    public ListingCache(long ttlMs, int maxDirectories) {
+        this.ttlMs = Math.max(0, ttlMs);
+        this.maxDirectories = Math.max(0, maxDirectories);
+    }
+
+    public long getTtlMs() {
+        return ttlMs;
+    }
+
+    public void setTtlMs(long ttlMs) {
+        this.ttlMs = Math.max(0, ttlMs);
+    }
+
+    public int getMaxDirectories() {
+        return maxDirectories;
+    }
+
+    public synchronized void setMaxDirectories(int maxDirectories) {
+        this.maxDirectories = Math.max(0, maxDirectories);
+        trim();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public List<FtpFileInfo> get(String path) {
+        String key = normalize(path);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && System.currentTimeMillis() - entry.storedAt >= ttlMs) {
+                entries.remove(key);
+                entry = null;
+            }
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+        }
+        return copy(entry.files);
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public void put(String path, List<FtpFileInfo> files, long listedAtVersion) {
+        if (ttlMs <= 0 || maxDirectories <= 0) {
+            return;
+        }
+        Entry entry = new Entry(copy(files), System.currentTimeMillis());
+        synchronized (this) {
+            if (version != listedAtVersion) {
+                return;
+            }
+            entries.put(normalize(path), entry);
+            trim();
+        }
+    }
+
+    public synchronized void invalidate(String path) {
+        version++;
+        entries.remove(normalize(path));
+    }
+
+    public synchronized void invalidateParent(String path) {
+        version++;
+        entries.remove(parentOf(normalize(path)));
+    }
+
+    public synchronized void invalidateTree(String path) {
+        version++;
+        String key = normalize(path);
+        String prefix = key.equals("/") ? "/" : key + "/";
+        Iterator<String> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            String cached = it.next();
+            if (cached.equals(key) || cached.startsWith(prefix)) {
+                it.remove();
+            }
+        }
+        entries.remove(parentOf(key));
+    }
+
+    public synchronized void bind(String scope) {
+        if (this.scope == null || !this.scope.equals(scope)) {
+            this.scope = scope;
+            clear();
+        }
+    }
+
+    public synchronized void clear() {
+        version++;
+        entries.clear();
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > maxDirectories && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static List<FtpFileInfo> copy(List<FtpFileInfo> files) {
+        List<FtpFileInfo> copy = new ArrayList<>(files.size());
+        for (FtpFileInfo file : files) {
+            copy.add(new FtpFileInfo(file.getName(), file.isDirectory(), file.getSize(), file.getTimestamp()));
+        }
+        return copy;
+    }
+
+    static String normalize(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        String[] parts = path.replace('\\', '/').split("/");
+        ArrayList<String> segments = new ArrayList<>(parts.length);
+        for (String part : parts) {
+            if (part.isEmpty() || part.equals(".")) {
+                continue;
+            }
+            if (part.equals("..")) {
+                if (!segments.isEmpty()) {
+                    segments.remove(segments.size() - 1);
+                }
+                continue;
+            }
+            segments.add(part);
+        }
+        return "/" + String.join("/", segments);
+    }
+
+    private static String parentOf(String normalized) {
+        int slash = normalized.lastIndexOf('/');
+        return slash <= 0 ? "/" : normalized.substring(0, slash);
+    }
+
+    private static class Entry {
+        private final List<FtpFileInfo> files;
+        private final long storedAt;
+
+        Entry(List<FtpFileInfo> files, long storedAt) {
+            this.files = files;
+            this.storedAt = storedAt;
+        }
+    }
+}
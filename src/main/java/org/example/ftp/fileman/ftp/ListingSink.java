@@ -0,0 +1,86 @@
+package org.example.ftp.fileman.ftp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+final class ListingSink implements Consumer<FtpFileInfo> {
+
+    static final int DEFAULT_BATCH_SIZE = 500;
+    static final long DEFAULT_FLUSH_INTERVAL_MS = 50;
+
+    private final FtpClientService.ListingCallback callback;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final List<FtpFileInfo> files = new ArrayList<>();
+    private int emitted = 0;
+    private int replay = 0;
+    private int seen = 0;
+    private String command;
+    private long lastFlush = System.nanoTime();
+
+    ListingSink(FtpClientService.ListingCallback callback) {
+        this(callback, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL_MS);
+    }
+
+    ListingSink(FtpClientService.ListingCallback callback, int batchSize, long flushIntervalMs) {
+        this.callback = callback;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = Math.max(0, flushIntervalMs) * 1_000_000L;
+    }
+
+    @Override
+    public void accept(FtpFileInfo info) {
+        seen++;
+        if (seen <= replay) {
+            return;
+        }
+        files.add(info);
+        if (callback != null) {
+            int pending = files.size() - emitted;
+            if (pending >= batchSize || (emitted == 0 && pending > 0) || System.nanoTime() - lastFlush >= flushIntervalNanos) {
+                flush();
+            }
+        }
+    }
+
+    // A retry of the same command resends the entries already delivered, so skip them; any other command starts over.
+    void begin(String command) {
+        if (command.equals(this.command)) {
+            replay = files.size();
+            seen = 0;
+        } else {
+            reset();
+            this.command = command;
+        }
+    }
+
+    void reset() {
+        boolean shown = emitted > 0;
+        files.clear();
+        emitted = 0;
+        replay = 0;
+        seen = 0;
+        command = null;
+        if (callback != null && shown) {
+            callback.onReset();
+        }
+    }
+
+    void finish() {
+        if (callback != null && emitted < files.size()) {
+            flush();
+        }
+    }
+
+    List<FtpFileInfo> getFiles() {
+        return files;
+    }
+
+    private void flush() {
+        List<FtpFileInfo> batch = new ArrayList<>(files.subList(emitted, files.size()));
+        emitted = files.size();
+        lastFlush = System.nanoTime();
+        callback.onEntries(batch, emitted);
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.ftp.fileman.ftp;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Calendar;
+
+final class MlsdEntryParser {
+
+    private MlsdEntryParser() {
+    }
+
+    static FtpFileInfo parse(String line) {
+        int space = line.indexOf(' ');
+        if (space < 0 || space >= line.length() - 1) {
+            return null;
+        }
+        String name = line.substring(space + 1);
+
+        String type = null;
+        long size = -1;
+        Calendar modified = null;
+        int start = 0;
+        while (start < space) {
+            int semicolon = line.indexOf(';', start);
+            if (semicolon < 0 || semicolon > space) {
+                semicolon = space;
+            }
+            int equals = line.indexOf('=', start);
+            if (equals > start && equals < semicolon) {
+                String value = line.substring(equals + 1, semicolon);
+                if (factIs(line, start, equals, "type")) {
+                    type = value;
+                } else if (factIs(line, start, equals, "size") || (size < 0 && factIs(line, start, equals, "sizd"))) {
+                    size = parseSize(value);
+                } else if (factIs(line, start, equals, "modify")) {
+                    modified = parseTimestamp(value);
+                }
+            }
+            start = semicolon + 1;
+        }
+
+        if (type == null) {
+            return null;
+        }
+        if (type.equalsIgnoreCase("cdir") || type.equalsIgnoreCase("pdir") || name.equals(".") || name.equals("..")) {
+            return null;
+        }
+        return new FtpFileInfo(name, type.equalsIgnoreCase("dir"), Math.max(0, size), modified);
+    }
+
+    private static boolean factIs(String line, int start, int end, String fact) {
+        return end - start == fact.length() && line.regionMatches(true, start, fact, 0, fact.length());
+    }
+
+    private static long parseSize(String value) {
+        long size = 0;
+        if (value.isEmpty()) {
+            return -1;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            size = size * 10 + (c - '0');
+        }
+        return size;
+    }
+
+    static Calendar parseTimestamp(String value) {
+        if (value.length() < 14) {
+            return null;
+        }
+        int year = digits(value, 0, 4);
+        int month = digits(value, 4, 6);
+        int day = digits(value, 6, 8);
+        int hour = digits(value, 8, 10);
+        int minute = digits(value, 10, 12);
+        int second = digits(value, 12, 14);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+            return null;
+        }
+        int millis = 0;
+        if (value.length() > 15 && value.charAt(14) == '.') {
+            int fractionEnd = Math.min(value.length(), 18);
+            int fraction = digits(value, 15, fractionEnd);
+            if (fraction > 0) {
+                for (int i = fractionEnd - 15; i < 3; i++) {
+                    fraction *= 10;
+                }
+                millis = fraction;
+            }
+        }
+        try {
+            long epochMillis = LocalDateTime.of(year, month, day, hour, minute, second)
+                .toInstant(ZoneOffset.UTC).toEpochMilli() + millis;
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(epochMillis);
+            return calendar;
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int digits(String value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.ftp.fileman.ftp;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+public class ReconnectPolicy {
+
+    public static final ReconnectPolicy DEFAULT = new ReconnectPolicy(4, 250, 8000);
+    public static final ReconnectPolicy NONE = new ReconnectPolicy(1, 0, 0);
+
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    public ReconnectPolicy(int maxAttempts, long initialBackoffMs, long maxBackoffMs) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMs = Math.max(0, initialBackoffMs);
+        this.maxBackoffMs = Math.max(this.initialBackoffMs, maxBackoffMs);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public boolean isRetryable(FtpErrorType type) {
+        return switch (type) {
+            case SERVER_UNAVAILABLE, PROTOCOL_ERROR -> true;
+            default -> false;
+        };
+    }
+
+    public boolean shouldRetry(FtpErrorType type, int attempt) {
+        return attempt < maxAttempts && isRetryable(type);
+    }
+
+    public long backoffMs(int attempt) {
+        if (initialBackoffMs == 0) {
+            return 0;
+        }
+        int shift = Math.min(Math.max(0, attempt - 1), 20);
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << shift);
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    public boolean backoff(int attempt) {
+        long delay = backoffMs(attempt);
+        if (delay <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
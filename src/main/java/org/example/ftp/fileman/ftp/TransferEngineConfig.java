@@ -0,0 +1,94 @@
+package org.example.ftp.fileman.ftp;
+
+public class TransferEngineConfig {
+
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+    public static final int DEFAULT_SOCKET_BUFFER_SIZE = 1024 * 1024;
+    public static final int DEFAULT_MAX_BUFFER_SIZE = 8 * 1024 * 1024;
+    public static final int DEFAULT_POOLED_BUFFERS = 16;
+
+    private static final int MIN_BUFFER_SIZE = 8 * 1024;
+    private static final long MIN_AUTO_TUNE_SAMPLE_NANOS = 1_000_000_000L;
+
+    private volatile int bufferSize = DEFAULT_BUFFER_SIZE;
+    private volatile int sendBufferSize = DEFAULT_SOCKET_BUFFER_SIZE;
+    private volatile int receiveBufferSize = DEFAULT_SOCKET_BUFFER_SIZE;
+    private volatile int maxBufferSize = DEFAULT_MAX_BUFFER_SIZE;
+    private volatile int pooledBuffers = DEFAULT_POOLED_BUFFERS;
+    private volatile boolean autoTune = true;
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = clamp(bufferSize, MIN_BUFFER_SIZE, maxBufferSize);
+    }
+
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    public void setSendBufferSize(int sendBufferSize) {
+        this.sendBufferSize = Math.max(0, sendBufferSize);
+    }
+
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    public void setReceiveBufferSize(int receiveBufferSize) {
+        this.receiveBufferSize = Math.max(0, receiveBufferSize);
+    }
+
+    public int getMaxBufferSize() {
+        return maxBufferSize;
+    }
+
+    public void setMaxBufferSize(int maxBufferSize) {
+        this.maxBufferSize = Math.max(MIN_BUFFER_SIZE, maxBufferSize);
+        if (bufferSize > this.maxBufferSize) {
+            bufferSize = this.maxBufferSize;
+        }
+    }
+
+    public int getPooledBuffers() {
+        return pooledBuffers;
+    }
+
+    public void setPooledBuffers(int pooledBuffers) {
+        this.pooledBuffers = Math.max(0, pooledBuffers);
+    }
+
+    public boolean isAutoTune() {
+        return autoTune;
+    }
+
+    public void setAutoTune(boolean autoTune) {
+        this.autoTune = autoTune;
+    }
+
+    public synchronized void observe(long bytes, long elapsedNanos, long roundTripNanos) {
+        if (!autoTune || bytes <= 0 || roundTripNanos <= 0 || elapsedNanos < MIN_AUTO_TUNE_SAMPLE_NANOS) {
+            return;
+        }
+
+        double bytesPerSecond = bytes * 1_000_000_000.0 / elapsedNanos;
+        long bandwidthDelayProduct = (long) (bytesPerSecond * roundTripNanos / 1_000_000_000.0);
+        int target = (int) Math.min(maxBufferSize, Integer.highestOneBit((int) Math.min(Integer.MAX_VALUE / 2, Math.max(1, bandwidthDelayProduct))) * 2L);
+
+        if (target > bufferSize) {
+            bufferSize = target;
+        }
+        if (sendBufferSize > 0 && target > sendBufferSize) {
+            sendBufferSize = target;
+        }
+        if (receiveBufferSize > 0 && target > receiveBufferSize) {
+            receiveBufferSize = target;
+        }
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
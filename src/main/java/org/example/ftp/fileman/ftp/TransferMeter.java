@@ -0,0 +1,186 @@
+package org.example.ftp.fileman.ftp;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TransferMeter {
+
+    public interface Listener {
+        boolean onProgress(long bytesTransferred, long totalBytes, double speedBytesPerSecond);
+    }
+
+    private static final long REPORT_INTERVAL_NANOS = 100_000_000L;
+    private static final double SPEED_TIME_CONSTANT_NANOS = 2_000_000_000.0;
+
+    private final long totalBytes;
+    private final long initialBytes;
+    private final Listener listener;
+    private final BandwidthLimiter.Throttle throttle;
+    private final AtomicLong bytesTransferred;
+    private final AtomicLong nextReportNanos;
+    private final long startedNanos = System.nanoTime();
+    private final Set<Closeable> attached = ConcurrentHashMap.newKeySet();
+
+    private long lastSampleNanos = startedNanos;
+    private long lastSampleBytes;
+    private volatile double speedBytesPerSecond = 0.0;
+    private volatile boolean cancelled = false;
+    private volatile boolean aborted = false;
+
+    public TransferMeter(long totalBytes, long initialBytes, Listener listener, BandwidthLimiter.Throttle throttle) {
+        this.totalBytes = totalBytes;
+        this.initialBytes = initialBytes;
+        this.listener = listener;
+        this.throttle = throttle;
+        this.bytesTransferred = new AtomicLong(initialBytes);
+        this.lastSampleBytes = initialBytes;
+        this.nextReportNanos = new AtomicLong(startedNanos);
+    }
+
+    public void add(long bytes) {
+        bytesTransferred.addAndGet(bytes);
+        if (throttle != null) {
+            throttle.acquire(bytes);
+        }
+        long now = System.nanoTime();
+        long due = nextReportNanos.get();
+        if (now >= due && nextReportNanos.compareAndSet(due, now + REPORT_INTERVAL_NANOS)) {
+            report(false);
+        }
+    }
+
+    public synchronized void report(boolean force) {
+        long now = System.nanoTime();
+        long bytesNow = bytesTransferred.get();
+        long elapsed = now - lastSampleNanos;
+        if (elapsed > 0) {
+            double instant = (bytesNow - lastSampleBytes) * 1_000_000_000.0 / elapsed;
+            double alpha = lastSampleBytes == initialBytes && speedBytesPerSecond == 0.0
+                ? 1.0
+                : 1.0 - Math.exp(-elapsed / SPEED_TIME_CONSTANT_NANOS);
+            speedBytesPerSecond += alpha * (instant - speedBytesPerSecond);
+            lastSampleNanos = now;
+            lastSampleBytes = bytesNow;
+        }
+
+        if (listener == null || cancelled) {
+            return;
+        }
+        try {
+            if (!listener.onProgress(bytesNow, totalBytes, speedBytesPerSecond) && !force) {
+                cancelled = true;
+            }
+        } catch (Exception e) {
+        }
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getBytesTransferred() {
+        return bytesTransferred.get();
+    }
+
+    public long getSessionBytes() {
+        return bytesTransferred.get() - initialBytes;
+    }
+
+    public long getElapsedNanos() {
+        return System.nanoTime() - startedNanos;
+    }
+
+    public double getSpeedBytesPerSecond() {
+        return speedBytesPerSecond;
+    }
+
+    public long getEtaSeconds() {
+        return etaSeconds(bytesTransferred.get(), totalBytes, speedBytesPerSecond);
+    }
+
+    public static long etaSeconds(long bytesTransferred, long totalBytes, double speedBytesPerSecond) {
+        if (totalBytes <= 0 || speedBytesPerSecond <= 0) {
+            return -1;
+        }
+        return (long) Math.ceil(Math.max(0, totalBytes - bytesTransferred) / speedBytesPerSecond);
+    }
+
+    public void abort() {
+        aborted = true;
+    }
+
+    public void cancel() {
+        cancelled = true;
+        for (Closeable resource : attached) {
+            closeQuietly(resource);
+        }
+    }
+
+    public void attach(Closeable resource) {
+        attached.add(resource);
+        if (cancelled) {
+            closeQuietly(resource);
+        }
+    }
+
+    public void detach(Closeable resource) {
+        attached.remove(resource);
+    }
+
+    private static void closeQuietly(Closeable resource) {
+        try {
+            resource.close();
+        } catch (IOException e) {
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isStopped() {
+        return cancelled || aborted;
+    }
+
+    public InputStream meter(InputStream in) {
+        return new MeteredInputStream(in, this);
+    }
+
+    private static class MeteredInputStream extends FilterInputStream {
+        private final TransferMeter meter;
+
+        MeteredInputStream(InputStream in, TransferMeter meter) {
+            super(in);
+            this.meter = meter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (meter.isStopped()) {
+                return -1;
+            }
+            int result = super.read();
+            if (result != -1) {
+                meter.add(1);
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (meter.isStopped()) {
+                return -1;
+            }
+            int result = super.read(b, off, len);
+            if (result > 0) {
+                meter.add(result);
+            }
+            return result;
+        }
+    }
+}
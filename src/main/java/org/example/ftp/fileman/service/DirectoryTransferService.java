@@ -0,0 +1,431 @@
+package org.example.ftp.fileman.service;
+
+import org.example.ftp.fileman.ftp.FtpClientService;
+import org.example.ftp.fileman.ftp.FtpFileInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class DirectoryTransferService {
+
+    private static final long PROGRESS_INTERVAL_MS = 100;
+    private static final long LARGE_FILE_BYTES = 4L * 1024 * 1024;
+
+    public interface Listener {
+        void onProgress(DirectoryTransfer transfer);
+
+        void onFinished(DirectoryTransfer transfer);
+    }
+
+    private final FtpClientService primary;
+    private final TransferQueue transferQueue;
+
+    public DirectoryTransferService(FtpClientService primary, TransferQueue transferQueue) {
+        this.primary = primary;
+        this.transferQueue = transferQueue;
+    }
+
+    public DirectoryTransfer downloadDirectory(String remoteRoot, File localRoot, Listener listener) {
+        String root = NavigationService.normalizePath(remoteRoot);
+        DirectoryTransfer transfer = new DirectoryTransfer(listener);
+        Thread.ofVirtual().name("directory-download").start(() -> {
+            try {
+                downloadTree(transfer, root, localRoot.toPath().toAbsolutePath().normalize());
+            } catch (IOException e) {
+                transfer.fail(e.getMessage());
+            }
+            transfer.scanFinished();
+        });
+        return transfer;
+    }
+
+    public DirectoryTransfer download(List<FtpFileInfo> entries, File targetDir, Listener listener) {
+        DirectoryTransfer transfer = new DirectoryTransfer(listener);
+        Path targetBase = targetDir.toPath().toAbsolutePath().normalize();
+        Thread.ofVirtual().name("batch-download").start(() -> {
+            List<FtpFileInfo> files = new ArrayList<>();
+            for (FtpFileInfo entry : entries) {
+                if (!entry.isDirectory()) {
+                    files.add(entry);
+                }
+            }
+            files.sort(Comparator.comparingLong(FtpFileInfo::getSize));
+            for (FtpFileInfo file : files) {
+                String name = RemoteTreeWalker.entryName(file.getName());
+                if (name == null) {
+                    continue;
+                }
+                String remotePath = file.getFullPath();
+                File target = targetBase.resolve(name).toFile();
+                long size = file.getSize();
+                transfer.track(size, jobListener -> transferQueue.enqueueDownload(remotePath, target, size, false,
+                    TransferQueue.Priority.NORMAL, jobListener));
+            }
+
+            for (FtpFileInfo entry : entries) {
+                String name = RemoteTreeWalker.entryName(entry.getName());
+                if (!entry.isDirectory() || name == null || transfer.isCancelled()) {
+                    continue;
+                }
+                try {
+                    downloadTree(transfer, NavigationService.normalizePath(entry.getFullPath()), targetBase.resolve(name));
+                } catch (IOException e) {
+                    transfer.fail(e.getMessage());
+                }
+            }
+            transfer.scanFinished();
+        });
+        return transfer;
+    }
+
+    private void downloadTree(DirectoryTransfer transfer, String root, Path localBase) throws IOException {
+        RemoteTreeWalker walker = new RemoteTreeWalker(primary);
+        transfer.walker = walker;
+        if (transfer.isCancelled()) {
+            return;
+        }
+        Files.createDirectories(localBase);
+        walker.walk(root, new RemoteTreeWalker.Visitor() {
+            @Override
+            public void onDirectory(String path, int depth) throws IOException {
+                Files.createDirectories(localPathFor(localBase, root, path));
+            }
+
+            @Override
+            public void onFile(String path, long size, int depth) throws IOException {
+                File target = localPathFor(localBase, root, path).toFile();
+                transfer.track(size, jobListener -> transferQueue.enqueueDownload(path, target, size, false,
+                    TransferQueue.Priority.NORMAL, jobListener));
+            }
+        });
+    }
+
+    public DirectoryTransfer uploadDirectory(File localRoot, String remoteParent, Long rateLimitBytesPerSecond, Listener listener) {
+        return upload(List.of(localRoot), remoteParent, rateLimitBytesPerSecond, listener);
+    }
+
+    public DirectoryTransfer upload(List<File> sources, String remoteParent, Long rateLimitBytesPerSecond, Listener listener) {
+        DirectoryTransfer transfer = new DirectoryTransfer(listener);
+
+        Thread.ofVirtual().name("batch-upload").start(() -> {
+            List<Path> looseFiles = new ArrayList<>();
+            List<Path> directories = new ArrayList<>();
+            for (File source : sources) {
+                Path path = source.toPath().toAbsolutePath().normalize();
+                if (Files.isDirectory(path)) {
+                    directories.add(path);
+                } else if (Files.isRegularFile(path)) {
+                    looseFiles.add(path);
+                }
+            }
+
+            looseFiles.sort(Comparator.comparingLong(path -> path.toFile().length()));
+            for (Path file : looseFiles) {
+                trackUpload(transfer, file, file.toFile().length(),
+                    NavigationService.joinPath(remoteParent, file.getFileName().toString()), rateLimitBytesPerSecond);
+            }
+
+            FtpClientService session = null;
+            try {
+                for (Path localBase : directories) {
+                    if (transfer.isCancelled()) {
+                        break;
+                    }
+                    if (session == null) {
+                        session = primary.openWorkerSession();
+                    }
+                    uploadTree(transfer, session, localBase,
+                        NavigationService.joinPath(remoteParent, localBase.getFileName().toString()), rateLimitBytesPerSecond);
+                }
+            } catch (IOException e) {
+                transfer.fail(e.getMessage());
+            } finally {
+                if (session != null) {
+                    session.disconnect();
+                }
+            }
+            transfer.scanFinished();
+        });
+        return transfer;
+    }
+
+    private void uploadTree(DirectoryTransfer transfer, FtpClientService session, Path localBase, String remoteRoot,
+                            Long rateLimitBytesPerSecond) throws IOException {
+        LocalTree tree = scanLocalTree(localBase);
+        for (Path dir : tree.directories) {
+            if (transfer.isCancelled()) {
+                break;
+            }
+            String remoteDir = remotePathFor(remoteRoot, localBase, dir);
+            if (!session.createDirectory(remoteDir) && !session.changeDirectory(remoteDir)) {
+                transfer.fail("Could not create folder " + remoteDir + ": " + session.getLastErrorMessage());
+                continue;
+            }
+
+            for (Path file : tree.files.getOrDefault(dir, List.of())) {
+                trackUpload(transfer, file, tree.sizes.get(file), remotePathFor(remoteRoot, localBase, file), rateLimitBytesPerSecond);
+            }
+        }
+        if (tree.unreadable > 0) {
+            transfer.fail(tree.unreadable + " local entries could not be read");
+        }
+    }
+
+    private void trackUpload(DirectoryTransfer transfer, Path file, long size, String remotePath, Long rateLimitBytesPerSecond) {
+        TransferQueue.Priority priority = size < LARGE_FILE_BYTES ? TransferQueue.Priority.NORMAL : TransferQueue.Priority.LOW;
+        transfer.track(size, jobListener -> transferQueue.enqueueUpload(file.toFile(), remotePath,
+            rateLimitBytesPerSecond, false, priority, jobListener));
+    }
+
+    private static LocalTree scanLocalTree(Path localBase) throws IOException {
+        LocalTree tree = new LocalTree();
+        Files.walkFileTree(localBase, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                tree.directories.add(dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    tree.files.computeIfAbsent(file.getParent(), k -> new ArrayList<>()).add(file);
+                    tree.sizes.put(file, attrs.size());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                tree.unreadable++;
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        for (List<Path> files : tree.files.values()) {
+            files.sort(Comparator.comparingLong(tree.sizes::get));
+        }
+        return tree;
+    }
+
+    static String remotePathFor(String remoteRoot, Path localBase, Path localPath) {
+        Path relative = localBase.relativize(localPath);
+        String result = remoteRoot;
+        for (Path part : relative) {
+            if (!part.toString().isEmpty()) {
+                result = NavigationService.joinPath(result, part.toString());
+            }
+        }
+        return result;
+    }
+
+    static Path localPathFor(Path localBase, String remoteRoot, String remotePath) throws IOException {
+        String relative = remotePath.length() > remoteRoot.length()
+            ? remotePath.substring(remoteRoot.equals("/") ? 1 : remoteRoot.length() + 1)
+            : "";
+        Path resolved = relative.isEmpty() ? localBase : localBase.resolve(relative).normalize();
+        if (!resolved.startsWith(localBase)) {
+            throw new IOException("Refusing to write outside " + localBase + ": " + remotePath);
+        }
+        return resolved;
+    }
+
+    private static class LocalTree {
+        private final List<Path> directories = new ArrayList<>();
+        private final Map<Path, List<Path>> files = new HashMap<>();
+        private final Map<Path, Long> sizes = new HashMap<>();
+        private int unreadable;
+    }
+
+    @FunctionalInterface
+    interface JobFactory {
+        TransferQueue.Job enqueue(TransferQueue.JobListener listener);
+    }
+
+    public static class DirectoryTransfer {
+        private final Listener listener;
+        private final Queue<TransferQueue.Job> jobs = new ConcurrentLinkedQueue<>();
+        private final Set<TransferQueue.Job> active = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger totalFiles = new AtomicInteger();
+        private final AtomicInteger completedFiles = new AtomicInteger();
+        private final AtomicInteger failedFiles = new AtomicInteger();
+        private final AtomicLong totalBytes = new AtomicLong();
+        private final AtomicLong finishedBytes = new AtomicLong();
+        private volatile RemoteTreeWalker walker;
+        private volatile boolean scanning = true;
+        private volatile boolean cancelled = false;
+        private volatile boolean finished = false;
+        private volatile String errorMessage = "";
+        private long lastNotifyTime;
+
+        DirectoryTransfer(Listener listener) {
+            this.listener = listener;
+        }
+
+        public int getTotalFiles() {
+            return totalFiles.get();
+        }
+
+        public int getCompletedFiles() {
+            return completedFiles.get();
+        }
+
+        public int getFailedFiles() {
+            return failedFiles.get();
+        }
+
+        public long getTotalBytes() {
+            return totalBytes.get();
+        }
+
+        public long getTransferredBytes() {
+            long bytes = finishedBytes.get();
+            for (TransferQueue.Job job : active) {
+                bytes += job.getBytesTransferred();
+            }
+            return bytes;
+        }
+
+        public double getSpeedBytesPerSecond() {
+            double speed = 0.0;
+            for (TransferQueue.Job job : active) {
+                if (job.getState() == TransferQueue.State.RUNNING) {
+                    speed += job.getSpeedBytesPerSecond();
+                }
+            }
+            return speed;
+        }
+
+        public boolean isScanning() {
+            return scanning;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isFinished() {
+            return finished;
+        }
+
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            RemoteTreeWalker currentWalker = walker;
+            if (currentWalker != null) {
+                currentWalker.cancel();
+            }
+            for (TransferQueue.Job job : jobs) {
+                job.cancel();
+            }
+        }
+
+        void track(long size, JobFactory factory) {
+            if (cancelled) {
+                return;
+            }
+            totalFiles.incrementAndGet();
+            totalBytes.addAndGet(Math.max(0, size));
+            TransferQueue.Job job = factory.enqueue(new TransferQueue.JobListener() {
+                @Override
+                public void onProgress(TransferQueue.Job job, long bytesTransferred, long total, double speed) {
+                    notifyProgress(false);
+                }
+
+                @Override
+                public void onStateChanged(TransferQueue.Job job) {
+                    if (job.isFinished()) {
+                        active.remove(job);
+                    } else {
+                        active.add(job);
+                    }
+                    switch (job.getState()) {
+                        case COMPLETED -> {
+                            finishedBytes.addAndGet(job.getTotalBytes());
+                            completedFiles.incrementAndGet();
+                        }
+                        case FAILED -> {
+                            if (errorMessage.isEmpty()) {
+                                errorMessage = job.getErrorMessage();
+                            }
+                            failedFiles.incrementAndGet();
+                        }
+                        case CANCELLED -> failedFiles.incrementAndGet();
+                        default -> {
+                        }
+                    }
+                    notifyProgress(false);
+                    checkFinished();
+                }
+            });
+            jobs.add(job);
+            if (cancelled) {
+                job.cancel();
+            }
+        }
+
+        void fail(String message) {
+            if (errorMessage.isEmpty()) {
+                errorMessage = message == null ? "" : message;
+            }
+        }
+
+        void scanFinished() {
+            scanning = false;
+            notifyProgress(true);
+            checkFinished();
+        }
+
+        private void notifyProgress(boolean force) {
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                if (!force && now - lastNotifyTime < PROGRESS_INTERVAL_MS) {
+                    return;
+                }
+                lastNotifyTime = now;
+            }
+            if (listener != null) {
+                try {
+                    listener.onProgress(this);
+                } catch (Exception e) {
+                }
+            }
+        }
+
+        private void checkFinished() {
+            if (scanning || completedFiles.get() + failedFiles.get() < totalFiles.get()) {
+                return;
+            }
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+            }
+            if (listener != null) {
+                try {
+                    listener.onFinished(this);
+                } catch (Exception e) {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.ftp.fileman.service;
+
+import org.example.ftp.fileman.ftp.FtpClientService;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class FtpAsyncExecutor {
+
+    private static final FtpAsyncExecutor SHARED = new FtpAsyncExecutor();
+
+    @FunctionalInterface
+    public interface FtpTask<T> {
+        T run(CompletableFuture<T> operation) throws Exception;
+    }
+
+    private final ExecutorService executor;
+
+    public FtpAsyncExecutor() {
+        this(Executors.newCachedThreadPool(Thread.ofPlatform().daemon().name("ftp-async-", 0).factory()));
+    }
+
+    public FtpAsyncExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public static FtpAsyncExecutor shared() {
+        return SHARED;
+    }
+
+    public <T> CompletableFuture<T> submit(FtpClientService service, FtpTask<T> task) {
+        return execute(new Operation<>(service, false), task);
+    }
+
+    public <T> CompletableFuture<T> submitTransfer(FtpClientService service, FtpTask<T> task) {
+        return execute(new Operation<>(service, true), task);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> execute(Operation<T> operation, FtpTask<T> task) {
+        try {
+            executor.execute(() -> operation.run(task));
+        } catch (RuntimeException e) {
+            operation.completeExceptionally(e);
+        }
+        return operation;
+    }
+
+    private static class Operation<T> extends CompletableFuture<T> {
+        private final FtpClientService service;
+        private final boolean transfer;
+        // Guards runner so cancel only ever interrupts and aborts the run that owns this operation.
+        private final Object lock = new Object();
+        private Thread runner;
+
+        Operation(FtpClientService service, boolean transfer) {
+            this.service = service;
+            this.transfer = transfer;
+        }
+
+        void run(FtpTask<T> task) {
+            synchronized (lock) {
+                if (isDone()) {
+                    return;
+                }
+                runner = Thread.currentThread();
+            }
+            try {
+                complete(task.run(this));
+            } catch (Throwable e) {
+                completeExceptionally(e);
+            } finally {
+                synchronized (lock) {
+                    runner = null;
+                    // A cancel that raced the end of the task must not leak into the next task on this pooled thread.
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            synchronized (lock) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                Thread thread = runner;
+                if (cancelled && thread != null) {
+                    if (transfer) {
+                        service.cancelTransfer(thread);
+                    } else {
+                        thread.interrupt();
+                        service.abortOperation(thread);
+                    }
+                }
+                return cancelled;
+            }
+        }
+
+        @Override
+        public <U> CompletableFuture<U> newIncompleteFuture() {
+            return new CompletableFuture<>();
+        }
+    }
+}
@@ -2,13 +2,21 @@ package org.example.ftp.fileman.service;
 
 import org.example.ftp.fileman.ftp.FtpClientService;
 
+import java.util.concurrent.CompletableFuture;
+
 
 public class FtpConnectionServiceAdapter implements IFtpConnectionService {
     
     private final FtpClientService ftpClientService;
+    private final FtpAsyncExecutor executor;
     
     public FtpConnectionServiceAdapter(FtpClientService ftpClientService) {
+        this(ftpClientService, FtpAsyncExecutor.shared());
+    }
+    
+    public FtpConnectionServiceAdapter(FtpClientService ftpClientService, FtpAsyncExecutor executor) {
         this.ftpClientService = ftpClientService;
+        this.executor = executor;
     }
     
     @Override
@@ -30,5 +38,23 @@ public class FtpConnectionServiceAdapter implements IFtpConnectionService {
     public String getCurrentDirectory() throws Exception {
         return ftpClientService.getCurrentDirectory();
     }
+    
+    @Override
+    public CompletableFuture<Boolean> connectAsync(String host, int port, String username, String password) {
+        return executor.submit(ftpClientService, operation -> connect(host, port, username, password));
+    }
+    
+    @Override
+    public CompletableFuture<Void> disconnectAsync() {
+        return executor.submit(ftpClientService, operation -> {
+            disconnect();
+            return null;
+        });
+    }
+    
+    @Override
+    public CompletableFuture<String> getCurrentDirectoryAsync() {
+        return executor.submit(ftpClientService, operation -> getCurrentDirectory());
+    }
 }
 
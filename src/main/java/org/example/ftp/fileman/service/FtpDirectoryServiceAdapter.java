@@ -5,14 +5,21 @@ import org.example.ftp.fileman.ftp.FtpFileInfo;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 
 public class FtpDirectoryServiceAdapter implements IFtpDirectoryService {
     
     private final FtpClientService ftpClientService;
+    private final FtpAsyncExecutor executor;
     
     public FtpDirectoryServiceAdapter(FtpClientService ftpClientService) {
+        this(ftpClientService, FtpAsyncExecutor.shared());
+    }
+    
+    public FtpDirectoryServiceAdapter(FtpClientService ftpClientService, FtpAsyncExecutor executor) {
         this.ftpClientService = ftpClientService;
+        this.executor = executor;
     }
     
     @Override
@@ -25,6 +32,11 @@ public class FtpDirectoryServiceAdapter implements IFtpDirectoryService {
         return ftpClientService.listFiles(path);
     }
     
+    @Override
+    public List<FtpFileInfo> listFiles(String path, FtpClientService.ListingCallback callback) throws IOException {
+        return ftpClientService.listFiles(path, callback);
+    }
+    
     @Override
     public boolean createDirectory(String path) throws IOException {
         return ftpClientService.createDirectory(path);
@@ -34,5 +46,44 @@ public class FtpDirectoryServiceAdapter implements IFtpDirectoryService {
     public boolean deleteDirectory(String path) throws IOException {
         return ftpClientService.deleteDirectory(path);
     }
+    
+    @Override
+    public CompletableFuture<Boolean> changeDirectoryAsync(String path) {
+        return executor.submit(ftpClientService, operation -> changeDirectory(path));
+    }
+    
+    @Override
+    public CompletableFuture<List<FtpFileInfo>> listFilesAsync(String path) {
+        return executor.submit(ftpClientService, operation -> listFiles(path));
+    }
+    
+    @Override
+    public CompletableFuture<List<FtpFileInfo>> listFilesAsync(String path, FtpClientService.ListingCallback callback) {
+        return executor.submit(ftpClientService, operation -> listFiles(path, new FtpClientService.ListingCallback() {
+            @Override
+            public void onEntries(List<FtpFileInfo> batch, int totalEntries) {
+                if (!operation.isCancelled()) {
+                    callback.onEntries(batch, totalEntries);
+                }
+            }
+
+            @Override
+            public void onReset() {
+                if (!operation.isCancelled()) {
+                    callback.onReset();
+                }
+            }
+        }));
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> createDirectoryAsync(String path) {
+        return executor.submit(ftpClientService, operation -> createDirectory(path));
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> deleteDirectoryAsync(String path) {
+        return executor.submit(ftpClientService, operation -> deleteDirectory(path));
+    }
 }
 
@@ -4,14 +4,21 @@ import org.example.ftp.fileman.ftp.FtpClientService;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 
 public class FtpFileServiceAdapter implements IFtpFileService {
     
     private final FtpClientService ftpClientService;
+    private final FtpAsyncExecutor executor;
     
     public FtpFileServiceAdapter(FtpClientService ftpClientService) {
+        this(ftpClientService, FtpAsyncExecutor.shared());
+    }
+    
+    public FtpFileServiceAdapter(FtpClientService ftpClientService, FtpAsyncExecutor executor) {
         this.ftpClientService = ftpClientService;
+        this.executor = executor;
     }
     
     @Override
@@ -47,5 +54,28 @@ public class FtpFileServiceAdapter implements IFtpFileService {
     public boolean deleteFile(String path) throws IOException {
         return ftpClientService.deleteFile(path);
     }
+    
+    @Override
+    public CompletableFuture<Boolean> uploadFileAsync(String remotePath, File localFile,
+                                                     UploadProgressCallback progressCallback) {
+        return executor.submitTransfer(ftpClientService, operation -> uploadFile(remotePath, localFile,
+            (bytesTransferred, totalBytes, speedBytesPerSecond) -> !operation.isCancelled()
+                && (progressCallback == null || progressCallback.onProgress(bytesTransferred, totalBytes, speedBytesPerSecond))));
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> downloadFileAsync(String remotePath, File localFile,
+                                                       DownloadProgressCallback progressCallback,
+                                                       long fileSize) {
+        return executor.submitTransfer(ftpClientService, operation -> downloadFile(remotePath, localFile,
+            (bytesTransferred, totalBytes, speedBytesPerSecond) -> !operation.isCancelled()
+                && (progressCallback == null || progressCallback.onProgress(bytesTransferred, totalBytes, speedBytesPerSecond)),
+            fileSize));
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> deleteFileAsync(String path) {
+        return executor.submit(ftpClientService, operation -> deleteFile(path));
+    }
 }
 
@@ -1,5 +1,6 @@
 package org.example.ftp.fileman.service;
 
+import java.util.concurrent.CompletableFuture;
 
 public interface IFtpConnectionService {
    
@@ -13,5 +14,14 @@ public interface IFtpConnectionService {
     
    
     String getCurrentDirectory() throws Exception;
+
+
+    CompletableFuture<Boolean> connectAsync(String host, int port, String username, String password);
+
+
+    CompletableFuture<Void> disconnectAsync();
+
+
+    CompletableFuture<String> getCurrentDirectoryAsync();
 }
 
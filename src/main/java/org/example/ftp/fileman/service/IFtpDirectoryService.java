@@ -2,7 +2,9 @@ package org.example.ftp.fileman.service;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import org.example.ftp.fileman.ftp.FtpClientService;
 import org.example.ftp.fileman.ftp.FtpFileInfo;
 
 
@@ -12,11 +14,29 @@ public interface IFtpDirectoryService {
     
   
     List<FtpFileInfo> listFiles(String path) throws IOException;
+
+
+    List<FtpFileInfo> listFiles(String path, FtpClientService.ListingCallback callback) throws IOException;
     
 
     boolean createDirectory(String path) throws IOException;
     
  
     boolean deleteDirectory(String path) throws IOException;
+
+
+    CompletableFuture<Boolean> changeDirectoryAsync(String path);
+
+
+    CompletableFuture<List<FtpFileInfo>> listFilesAsync(String path);
+
+
+    CompletableFuture<List<FtpFileInfo>> listFilesAsync(String path, FtpClientService.ListingCallback callback);
+
+
+    CompletableFuture<Boolean> createDirectoryAsync(String path);
+
+
+    CompletableFuture<Boolean> deleteDirectoryAsync(String path);
 }
 
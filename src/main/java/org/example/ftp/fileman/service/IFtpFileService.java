@@ -2,6 +2,7 @@ package org.example.ftp.fileman.service;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 
 public interface IFtpFileService {
@@ -15,6 +16,18 @@ public interface IFtpFileService {
     
 
     boolean deleteFile(String path) throws IOException;
+
+
+    CompletableFuture<Boolean> uploadFileAsync(String remotePath, File localFile,
+                                              UploadProgressCallback progressCallback);
+
+
+    CompletableFuture<Boolean> downloadFileAsync(String remotePath, File localFile,
+                                                DownloadProgressCallback progressCallback,
+                                                long fileSize);
+
+
+    CompletableFuture<Boolean> deleteFileAsync(String path);
     
  
     @FunctionalInterface
@@ -0,0 +1,333 @@
+package org.example.ftp.fileman.service;
+
+import org.example.ftp.fileman.ftp.FtpClientService;
+import org.example.ftp.fileman.ftp.FtpFileInfo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RecursiveDeleteService {
+
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final long NOTIFY_INTERVAL_NANOS = 100_000_000L;
+    private static final Task DONE = new Task(null, false);
+
+    public interface Listener {
+        void onProgress(Result result);
+
+        void onDirectoryRemoved(String path);
+    }
+
+    private final FtpClientService primary;
+    private final int parallelism;
+    private volatile boolean cancelled = false;
+    private volatile RemoteTreeWalker walker;
+
+    public RecursiveDeleteService(FtpClientService primary) {
+        this(primary, DEFAULT_PARALLELISM);
+    }
+
+    public RecursiveDeleteService(FtpClientService primary, int parallelism) {
+        this.primary = primary;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public void cancel() {
+        cancelled = true;
+        RemoteTreeWalker current = walker;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public Result deleteTree(String path, Listener listener) {
+        FtpFileInfo root = new FtpFileInfo(NavigationService.getFileName(path), true, 0, null, null, path);
+        return delete(List.of(root), listener);
+    }
+
+    public Result delete(List<FtpFileInfo> entries, Listener listener) {
+        Result result = new Result(listener);
+        ConcurrentSkipListMap<Integer, Queue<String>> directoriesByDepth = new ConcurrentSkipListMap<>();
+        Workers workers = new Workers(result, listener);
+
+        try {
+            for (FtpFileInfo entry : entries) {
+                if (cancelled) {
+                    break;
+                }
+                String path = entry.getFullPath();
+                if (!entry.isDirectory()) {
+                    result.discovered();
+                    workers.submit(new Task(path, false));
+                    continue;
+                }
+                RemoteTreeWalker treeWalker = new RemoteTreeWalker(primary, parallelism);
+                walker = treeWalker;
+                if (cancelled) {
+                    treeWalker.cancel();
+                }
+                treeWalker.walk(path, new RemoteTreeWalker.Visitor() {
+                    @Override
+                    public void onDirectory(String directory, int depth) {
+                        result.discovered();
+                        directoriesByDepth.computeIfAbsent(depth, d -> new ConcurrentLinkedQueue<>()).add(directory);
+                    }
+
+                    @Override
+                    public void onFile(String file, long size, int depth) {
+                        result.discovered();
+                        workers.submit(new Task(file, false));
+                    }
+                });
+            }
+            workers.awaitIdle();
+
+            for (Map.Entry<Integer, Queue<String>> level : directoriesByDepth.descendingMap().entrySet()) {
+                if (cancelled) {
+                    break;
+                }
+                for (String directory : level.getValue()) {
+                    workers.submit(new Task(directory, true));
+                }
+                workers.awaitIdle();
+            }
+        } catch (IOException e) {
+            cancelled = true;
+            result.failed(e.getMessage() != null ? e.getMessage() : "Failed to list directory tree");
+        } catch (InterruptedException e) {
+            cancelled = true;
+            Thread.currentThread().interrupt();
+            result.error("Delete interrupted");
+        } finally {
+            workers.shutdown();
+        }
+
+        result.cancelled = cancelled;
+        result.notifyListener(true);
+        return result;
+    }
+
+    private class Workers {
+        private final LinkedBlockingQueue<Task> tasks = new LinkedBlockingQueue<>();
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final Object idle = new Object();
+        private final List<Thread> threads = new ArrayList<>();
+        private final Result result;
+        private final Listener listener;
+
+        Workers(Result result, Listener listener) {
+            this.result = result;
+            this.listener = listener;
+            for (int i = 0; i < parallelism; i++) {
+                threads.add(Thread.ofVirtual().name("delete-worker-" + i).start(this::run));
+            }
+        }
+
+        void submit(Task task) {
+            outstanding.incrementAndGet();
+            tasks.add(task);
+        }
+
+        void awaitIdle() throws InterruptedException {
+            synchronized (idle) {
+                while (outstanding.get() > 0) {
+                    idle.wait();
+                }
+            }
+        }
+
+        void shutdown() {
+            for (int i = 0; i < threads.size(); i++) {
+                tasks.add(DONE);
+            }
+            for (Thread thread : threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void run() {
+            FtpClientService session = null;
+            try {
+                while (true) {
+                    Task task = tasks.take();
+                    if (task == DONE) {
+                        return;
+                    }
+                    try {
+                        if (!cancelled) {
+                            if (session == null || !session.isConnected()) {
+                                session = primary.openWorkerSession();
+                            }
+                            execute(session, task);
+                        }
+                    } catch (IOException e) {
+                        String reason = session != null ? session.getLastErrorMessage() : null;
+                        result.failed(reason != null && !reason.isBlank() ? reason : e.getMessage());
+                        if (session == null) {
+                            cancelled = true;
+                        }
+                    } finally {
+                        if (outstanding.decrementAndGet() == 0) {
+                            synchronized (idle) {
+                                idle.notifyAll();
+                            }
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (session != null) {
+                    session.disconnect();
+                }
+            }
+        }
+
+        private void execute(FtpClientService session, Task task) throws IOException {
+            if (task.directory) {
+                if (session.deleteDirectory(task.path)) {
+                    result.directoryRemoved();
+                    if (listener != null) {
+                        listener.onDirectoryRemoved(task.path);
+                    }
+                } else {
+                    result.failed(session.getLastErrorMessage());
+                }
+            } else {
+                if (session.deleteFile(task.path)) {
+                    result.fileDeleted();
+                } else {
+                    result.failed(session.getLastErrorMessage());
+                }
+            }
+        }
+    }
+
+    public static class Result {
+        private final Listener listener;
+        private final AtomicInteger total = new AtomicInteger();
+        private final AtomicInteger deletedFiles = new AtomicInteger();
+        private final AtomicInteger removedDirectories = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicLong lastNotifyNanos = new AtomicLong();
+        private final Queue<String> errors = new ConcurrentLinkedQueue<>();
+        private volatile boolean cancelled = false;
+
+        Result(Listener listener) {
+            this.listener = listener;
+        }
+
+        public int getTotal() {
+            return total.get();
+        }
+
+        public int getDeletedFiles() {
+            return deletedFiles.get();
+        }
+
+        public int getRemovedDirectories() {
+            return removedDirectories.get();
+        }
+
+        public int getFailed() {
+            return failed.get();
+        }
+
+        public int getProcessed() {
+            return deletedFiles.get() + removedDirectories.get() + failed.get();
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isSuccessful() {
+            return !cancelled && errors.isEmpty();
+        }
+
+        public String getErrorMessage() {
+            StringBuilder sb = new StringBuilder();
+            for (String error : errors) {
+                if (sb.length() > 0) {
+                    sb.append('\n');
+                }
+                sb.append(error);
+            }
+            int hidden = failed.get() - errors.size();
+            if (hidden > 0) {
+                sb.append("\n... and ").append(hidden).append(" more");
+            }
+            return sb.toString();
+        }
+
+        void discovered() {
+            total.incrementAndGet();
+            notifyListener(false);
+        }
+
+        void fileDeleted() {
+            deletedFiles.incrementAndGet();
+            notifyListener(false);
+        }
+
+        void directoryRemoved() {
+            removedDirectories.incrementAndGet();
+            notifyListener(false);
+        }
+
+        void failed(String reason) {
+            failed.incrementAndGet();
+            error(reason);
+            notifyListener(false);
+        }
+
+        void error(String reason) {
+            if (reason != null && !reason.isBlank() && errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(reason);
+            }
+        }
+
+        void notifyListener(boolean force) {
+            if (listener == null) {
+                return;
+            }
+            long now = System.nanoTime();
+            long last = lastNotifyNanos.get();
+            if (!force && now - last < NOTIFY_INTERVAL_NANOS) {
+                return;
+            }
+            if (force || lastNotifyNanos.compareAndSet(last, now)) {
+                listener.onProgress(this);
+            }
+        }
+    }
+
+    private static class Task {
+        private final String path;
+        private final boolean directory;
+
+        Task(String path, boolean directory) {
+            this.path = path;
+            this.directory = directory;
+        }
+    }
+}
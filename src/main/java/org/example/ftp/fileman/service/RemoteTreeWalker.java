@@ -0,0 +1,159 @@
+package org.example.ftp.fileman.service;
+
+import org.example.ftp.fileman.ftp.FtpClientService;
+import org.example.ftp.fileman.ftp.FtpFileInfo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RemoteTreeWalker {
+
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    public interface Visitor {
+        void onDirectory(String path, int depth) throws IOException;
+
+        void onFile(String path, long size, int depth) throws IOException;
+    }
+
+    private static final DirectoryTask DONE = new DirectoryTask(null, -1);
+
+    private final FtpClientService primary;
+    private final int parallelism;
+    private volatile boolean cancelled = false;
+
+    public RemoteTreeWalker(FtpClientService primary) {
+        this(primary, DEFAULT_PARALLELISM);
+    }
+
+    public RemoteTreeWalker(FtpClientService primary, int parallelism) {
+        this.primary = primary;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void walk(String rootPath, Visitor visitor) throws IOException {
+        String root = NavigationService.normalizePath(rootPath);
+        LinkedBlockingQueue<DirectoryTask> tasks = new LinkedBlockingQueue<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        IOException[] failure = {null};
+
+        visitor.onDirectory(root, 0);
+        tasks.add(new DirectoryTask(root, 0));
+
+        List<Thread> listers = new ArrayList<>();
+        for (int i = 0; i < parallelism; i++) {
+            listers.add(Thread.ofVirtual().name("tree-lister-" + i).start(() -> {
+                FtpClientService session = null;
+                try {
+                    while (true) {
+                        DirectoryTask task = tasks.take();
+                        if (task == DONE) {
+                            return;
+                        }
+                        try {
+                            if (!cancelled) {
+                                if (session == null || !session.isConnected()) {
+                                    session = primary.openWorkerSession();
+                                }
+                                listDirectory(session, task, tasks, outstanding, visitor);
+                            }
+                        } catch (IOException e) {
+                            synchronized (failure) {
+                                if (failure[0] == null) {
+                                    failure[0] = e;
+                                }
+                            }
+                            cancelled = true;
+                        } finally {
+                            if (outstanding.decrementAndGet() == 0) {
+                                for (int j = 0; j < parallelism; j++) {
+                                    tasks.add(DONE);
+                                }
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    if (session != null) {
+                        session.disconnect();
+                    }
+                }
+            }));
+        }
+
+        try {
+            for (Thread lister : listers) {
+                lister.join();
+            }
+        } catch (InterruptedException e) {
+            cancelled = true;
+            for (Thread lister : listers) {
+                lister.interrupt();
+            }
+            Thread.currentThread().interrupt();
+            throw new IOException("Directory walk interrupted");
+        }
+
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    private void listDirectory(FtpClientService session, DirectoryTask task, LinkedBlockingQueue<DirectoryTask> tasks,
+                               AtomicInteger outstanding, Visitor visitor) throws IOException {
+        List<FtpFileInfo> entries = session.listFiles(task.path);
+        for (FtpFileInfo entry : entries) {
+            if (cancelled) {
+                return;
+            }
+            String name = entryName(entry.getName());
+            if (name == null) {
+                continue;
+            }
+            String childPath = NavigationService.joinPath(task.path, name);
+            if (entry.isDirectory()) {
+                visitor.onDirectory(childPath, task.depth + 1);
+                outstanding.incrementAndGet();
+                tasks.add(new DirectoryTask(childPath, task.depth + 1));
+            } else {
+                visitor.onFile(childPath, entry.getSize(), task.depth + 1);
+            }
+        }
+    }
+
+    static String entryName(String name) {
+        if (name == null) {
+            return null;
+        }
+        int slash = name.lastIndexOf('/');
+        if (slash >= 0) {
+            name = name.substring(slash + 1);
+        }
+        if (name.isEmpty() || name.equals(".") || name.equals("..") || name.indexOf('\\') >= 0) {
+            return null;
+        }
+        return name;
+    }
+
+    private static class DirectoryTask {
+        private final String path;
+        private final int depth;
+
+        DirectoryTask(String path, int depth) {
+            this.path = path;
+            this.depth = depth;
+        }
+    }
+}
@@ -0,0 +1,567 @@
+package org.example.ftp.fileman.service;
+
+import org.example.ftp.fileman.ftp.FtpClientService;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TransferQueue {
+
+    public static final int DEFAULT_MAX_CONCURRENT = 3;
+
+    private static final long SUMMARY_INTERVAL_MS = 100;
+    private static final long INTERACTIVE_DEFER_MS = 2000;
+
+    public enum Direction {
+        UPLOAD,
+        DOWNLOAD
+    }
+
+    public enum Priority {
+        HIGH(4),
+        NORMAL(2),
+        LOW(1);
+
+        private final int bandwidthWeight;
+
+        Priority(int bandwidthWeight) {
+            this.bandwidthWeight = bandwidthWeight;
+        }
+
+        public int getBandwidthWeight() {
+            return bandwidthWeight;
+        }
+    }
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        PAUSED,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    public interface JobListener {
+        void onProgress(Job job, long bytesTransferred, long totalBytes, double speedBytesPerSecond);
+
+        void onStateChanged(Job job);
+    }
+
+    @FunctionalInterface
+    public interface SummaryListener {
+        void onSummary(Summary summary);
+    }
+
+    private final FtpClientService primary;
+    private final int maxConcurrent;
+    private final AtomicLong sequence = new AtomicLong();
+    private final PriorityBlockingQueue<Job> pending = new PriorityBlockingQueue<>(16,
+        Comparator.comparing((Job job) -> job.priority).thenComparingLong(job -> job.sequence));
+    private final Queue<Job> jobs = new ConcurrentLinkedQueue<>();
+    private final Set<Job> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger[] stateCounts = new AtomicInteger[State.values().length];
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong completedBytes = new AtomicLong();
+    private final List<SummaryListener> summaryListeners = new CopyOnWriteArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final List<FtpClientService> workerSessions = new CopyOnWriteArrayList<>();
+    private long lastSummaryTime;
+    private volatile boolean shutdown = false;
+
+    public TransferQueue(FtpClientService primary) {
+        this(primary, DEFAULT_MAX_CONCURRENT);
+    }
+
+    public TransferQueue(FtpClientService primary, int maxConcurrent) {
+        this.primary = primary;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        for (int i = 0; i < stateCounts.length; i++) {
+            stateCounts[i] = new AtomicInteger();
+        }
+    }
+
+    public Job enqueueUpload(File localFile, String remotePath, Long rateLimitBytesPerSecond, boolean resume,
+                             Priority priority, JobListener listener) {
+        Job job = new Job(Direction.UPLOAD, localFile, remotePath, localFile.length(), priority, listener);
+        job.rateLimitBytesPerSecond = rateLimitBytesPerSecond;
+        job.resume = resume;
+        return submit(job);
+    }
+
+    public Job enqueueDownload(String remotePath, File localFile, long remoteSize, boolean resume,
+                               Priority priority, JobListener listener) {
+        Job job = new Job(Direction.DOWNLOAD, localFile, remotePath, remoteSize, priority, listener);
+        job.resume = resume;
+        return submit(job);
+    }
+
+    public void addSummaryListener(SummaryListener listener) {
+        summaryListeners.add(listener);
+    }
+
+    public void removeSummaryListener(SummaryListener listener) {
+        summaryListeners.remove(listener);
+    }
+
+    public List<Job> getJobs() {
+        return new ArrayList<>(jobs);
+    }
+
+    public void pauseAll() {
+        for (Job job : jobs) {
+            job.pause();
+        }
+        publishSummary(true);
+    }
+
+    public void resumeAll() {
+        for (Job job : jobs) {
+            job.resume();
+        }
+        publishSummary(true);
+    }
+
+    public void cancelAll() {
+        for (Job job : jobs) {
+            job.cancel();
+        }
+        publishSummary(true);
+    }
+
+    public synchronized void clearFinished() {
+        for (Iterator<Job> it = jobs.iterator(); it.hasNext(); ) {
+            Job job = it.next();
+            if (job.isFinished()) {
+                it.remove();
+                stateCounts[job.state.ordinal()].decrementAndGet();
+                if (job.state != State.CANCELLED) {
+                    totalBytes.addAndGet(-Math.max(0, job.totalBytes));
+                }
+                if (job.state == State.COMPLETED) {
+                    completedBytes.addAndGet(-job.totalBytes);
+                }
+            }
+        }
+        publishSummary(true);
+    }
+
+    public synchronized void shutdown() {
+        shutdown = true;
+        cancelAll();
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        workers.clear();
+        for (FtpClientService session : workerSessions) {
+            session.disconnect();
+        }
+        workerSessions.clear();
+    }
+
+    public Summary getSummary() {
+        long transferredBytes = completedBytes.get();
+        double speed = 0.0;
+        for (Job job : inFlight) {
+            transferredBytes += job.bytesTransferred;
+            if (job.state == State.RUNNING) {
+                speed += job.speedBytesPerSecond;
+            }
+        }
+        return new Summary(count(State.QUEUED), count(State.RUNNING), count(State.PAUSED), count(State.COMPLETED),
+            count(State.FAILED), count(State.CANCELLED), totalBytes.get(), transferredBytes, speed);
+    }
+
+    private int count(State state) {
+        return stateCounts[state.ordinal()].get();
+    }
+
+    private boolean isIdle() {
+        return count(State.QUEUED) + count(State.RUNNING) + count(State.PAUSED) == 0;
+    }
+
+    private synchronized Job submit(Job job) {
+        if (shutdown) {
+            throw new IllegalStateException("Transfer queue is shut down");
+        }
+        if (isIdle() && !jobs.isEmpty()) {
+            clearFinished();
+        }
+        jobs.add(job);
+        stateCounts[State.QUEUED.ordinal()].incrementAndGet();
+        totalBytes.addAndGet(Math.max(0, job.totalBytes));
+        pending.offer(job);
+        ensureWorkers();
+        publishSummary(false);
+        return job;
+    }
+
+    private synchronized void ensureWorkers() {
+        while (workers.size() < maxConcurrent) {
+            Thread worker = Thread.ofVirtual()
+                .name("transfer-worker-" + workers.size())
+                .start(this::workerLoop);
+            workers.add(worker);
+        }
+    }
+
+    private void workerLoop() {
+        FtpClientService session = null;
+        long generation = -1;
+        try {
+            while (!shutdown) {
+                Job job = pending.take();
+                primary.awaitInteractiveIdle(INTERACTIVE_DEFER_MS);
+                if (!job.start()) {
+                    continue;
+                }
+                job.fireStateChanged();
+                publishSummary(false);
+
+                try {
+                    if (session == null || !session.isConnected() || generation != primary.getSessionGeneration()) {
+                        closeWorkerSession(session);
+                        session = null;
+                        generation = primary.getSessionGeneration();
+                        session = primary.openWorkerSession();
+                        workerSessions.add(session);
+                    }
+                    runJob(session, job);
+                } catch (IOException e) {
+                    job.finish(false, e.getMessage());
+                }
+
+                if (session != null && !session.isConnected()) {
+                    closeWorkerSession(session);
+                    session = null;
+                }
+                job.fireStateChanged();
+                publishSummary(isIdle());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeWorkerSession(session);
+        }
+    }
+
+    private void closeWorkerSession(FtpClientService session) {
+        if (session != null) {
+            workerSessions.remove(session);
+            session.disconnect();
+        }
+    }
+
+    private void runJob(FtpClientService session, Job job) throws IOException {
+        session.setBandwidthWeight(job.priority.getBandwidthWeight());
+        boolean success;
+        if (job.direction == Direction.UPLOAD) {
+            success = session.uploadFile(job.localFile, job.remotePath,
+                (bytes, total, speed) -> job.onProgress(bytes, total, speed),
+                job.rateLimitBytesPerSecond, job.resume, true);
+        } else {
+            success = session.downloadFile(job.remotePath, job.localFile,
+                (bytes, total, speed) -> job.onProgress(bytes, total, speed),
+                job.totalBytes, job.resume);
+        }
+
+        String reason = session.getLastErrorMessage();
+        if (!success && (reason == null || reason.isBlank())) {
+            reason = (job.direction == Direction.UPLOAD ? "Failed to upload " : "Failed to download ") + job.remotePath;
+        }
+        job.finish(success, reason);
+    }
+
+    private void publishSummary(boolean force) {
+        if (summaryListeners.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (!force && now - lastSummaryTime < SUMMARY_INTERVAL_MS) {
+                return;
+            }
+            lastSummaryTime = now;
+        }
+
+        Summary summary = getSummary();
+        for (SummaryListener listener : summaryListeners) {
+            try {
+                listener.onSummary(summary);
+            } catch (Exception e) {
+            }
+        }
+    }
+
+    public class Job {
+        private final long sequence;
+        private final Direction direction;
+        private final File localFile;
+        private final String remotePath;
+        private final Priority priority;
+        private final JobListener listener;
+        private volatile long totalBytes;
+        private volatile long bytesTransferred;
+        private volatile double speedBytesPerSecond;
+        private volatile Long rateLimitBytesPerSecond;
+        private volatile boolean resume;
+        private volatile State state = State.QUEUED;
+        private volatile boolean pauseRequested = false;
+        private volatile boolean cancelRequested = false;
+        private volatile String errorMessage = "";
+
+        private Job(Direction direction, File localFile, String remotePath, long totalBytes, Priority priority, JobListener listener) {
+            this.sequence = TransferQueue.this.sequence.incrementAndGet();
+            this.direction = direction;
+            this.localFile = localFile;
+            this.remotePath = remotePath;
+            this.totalBytes = totalBytes;
+            this.priority = priority == null ? Priority.NORMAL : priority;
+            this.listener = listener;
+        }
+
+        public Direction getDirection() {
+            return direction;
+        }
+
+        public File getLocalFile() {
+            return localFile;
+        }
+
+        public String getRemotePath() {
+            return remotePath;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        public long getBytesTransferred() {
+            return bytesTransferred;
+        }
+
+        public double getSpeedBytesPerSecond() {
+            return speedBytesPerSecond;
+        }
+
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+
+        public boolean isFinished() {
+            State current = state;
+            return current == State.COMPLETED || current == State.FAILED || current == State.CANCELLED;
+        }
+
+        public void pause() {
+            synchronized (this) {
+                if (state == State.RUNNING) {
+                    pauseRequested = true;
+                    return;
+                }
+                if (state != State.QUEUED) {
+                    return;
+                }
+                pending.remove(this);
+                moveTo(State.PAUSED);
+            }
+            fireStateChanged();
+            publishSummary(false);
+        }
+
+        public void resume() {
+            synchronized (this) {
+                if (state == State.RUNNING) {
+                    pauseRequested = false;
+                    return;
+                }
+                if (state != State.PAUSED || shutdown) {
+                    return;
+                }
+                resume = true;
+                moveTo(State.QUEUED);
+                pending.offer(this);
+            }
+            fireStateChanged();
+            publishSummary(false);
+        }
+
+        public void cancel() {
+            synchronized (this) {
+                if (state == State.RUNNING) {
+                    cancelRequested = true;
+                    return;
+                }
+                if (state != State.QUEUED && state != State.PAUSED) {
+                    return;
+                }
+                pending.remove(this);
+                moveTo(State.CANCELLED);
+            }
+            fireStateChanged();
+            publishSummary(false);
+        }
+
+        private synchronized boolean start() {
+            if (state != State.QUEUED) {
+                return false;
+            }
+            moveTo(State.RUNNING);
+            pauseRequested = false;
+            cancelRequested = false;
+            errorMessage = "";
+            return true;
+        }
+
+        private synchronized void finish(boolean success, String reason) {
+            speedBytesPerSecond = 0.0;
+            if (success) {
+                bytesTransferred = Math.max(bytesTransferred, totalBytes);
+                moveTo(State.COMPLETED);
+            } else if (cancelRequested) {
+                moveTo(State.CANCELLED);
+            } else if (pauseRequested) {
+                resume = true;
+                moveTo(State.PAUSED);
+            } else {
+                errorMessage = reason == null ? "" : reason;
+                moveTo(State.FAILED);
+            }
+        }
+
+        private void moveTo(State next) {
+            stateCounts[state.ordinal()].decrementAndGet();
+            stateCounts[next.ordinal()].incrementAndGet();
+            state = next;
+            if (next == State.RUNNING || next == State.PAUSED) {
+                inFlight.add(this);
+            } else {
+                inFlight.remove(this);
+            }
+            if (next == State.COMPLETED) {
+                completedBytes.addAndGet(totalBytes);
+            } else if (next == State.CANCELLED) {
+                TransferQueue.this.totalBytes.addAndGet(-Math.max(0, totalBytes));
+            }
+        }
+
+        private boolean onProgress(long bytes, long total, double speed) {
+            bytesTransferred = bytes;
+            if (total > 0 && total != totalBytes) {
+                TransferQueue.this.totalBytes.addAndGet(total - Math.max(0, totalBytes));
+                totalBytes = total;
+            }
+            speedBytesPerSecond = speed;
+            if (listener != null) {
+                try {
+                    listener.onProgress(this, bytes, total, speed);
+                } catch (Exception e) {
+                }
+            }
+            publishSummary(false);
+            return !cancelRequested && !pauseRequested;
+        }
+
+        private void fireStateChanged() {
+            if (listener != null) {
+                try {
+                    listener.onStateChanged(this);
+                } catch (Exception e) {
+                }
+            }
+        }
+    }
+
+    public static class Summary {
+        private final int queued;
+        private final int running;
+        private final int paused;
+        private final int completed;
+        private final int failed;
+        private final int cancelled;
+        private final long totalBytes;
+        private final long transferredBytes;
+        private final double speedBytesPerSecond;
+
+        public Summary(int queued, int running, int paused, int completed, int failed, int cancelled,
+                       long totalBytes, long transferredBytes, double speedBytesPerSecond) {
+            this.queued = queued;
+            this.running = running;
+            this.paused = paused;
+            this.completed = completed;
+            this.failed = failed;
+            this.cancelled = cancelled;
+            this.totalBytes = totalBytes;
+            this.transferredBytes = transferredBytes;
+            this.speedBytesPerSecond = speedBytesPerSecond;
+        }
+
+        public int getQueued() {
+            return queued;
+        }
+
+        public int getRunning() {
+            return running;
+        }
+
+        public int getPaused() {
+            return paused;
+        }
+
+        public int getCompleted() {
+            return completed;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public int getCancelled() {
+            return cancelled;
+        }
+
+        public int getActive() {
+            return queued + running + paused;
+        }
+
+        public int getTotal() {
+            return queued + running + paused + completed + failed + cancelled;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        public long getTransferredBytes() {
+            return transferredBytes;
+        }
+
+        public double getSpeedBytesPerSecond() {
+            return speedBytesPerSecond;
+        }
+
+        public double getProgress() {
+            return totalBytes > 0 ? Math.min(1.0, (double) transferredBytes / totalBytes) : 0.0;
+        }
+    }
+}
@@ -9,25 +9,48 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Window;
 import javafx.stage.FileChooser.ExtensionFilter;
 import org.example.ftp.fileman.api.FolderPermissionsApiClient;
+import org.example.ftp.fileman.ftp.BandwidthLimiter;
+import org.example.ftp.fileman.ftp.DownloadJournal;
 import org.example.ftp.fileman.ftp.FtpClientService;
 import org.example.ftp.fileman.ftp.FtpFileInfo;
 import org.example.ftp.fileman.ftp.FolderType;
+import org.example.ftp.fileman.ftp.LatencyTracker;
+import org.example.ftp.fileman.ftp.TransferMeter;
+import org.example.ftp.fileman.service.DirectoryTransferService;
+import org.example.ftp.fileman.service.FtpAsyncExecutor;
 import org.example.ftp.fileman.service.NavigationService;
+import org.example.ftp.fileman.service.RecursiveDeleteService;
+import org.example.ftp.fileman.service.TransferQueue;
 import org.example.ftp.fileman.ui.util.DialogStyler;
+import org.example.ftp.fileman.ui.util.ProgressPublisher;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 
 public class FileBrowserPanel extends BorderPane {
 
     private final FtpClientService ftpService;
     private final ConnectionPanel connectionPanel;
     private final FolderPermissionsApiClient apiClient;
+    private final TransferQueue transferQueue;
+    private final DirectoryTransferService directoryTransferService;
 
     private TableView<FtpFileInfo> globalTable;
     private TableView<FtpFileInfo> yourDirectoryTable;
@@ -38,6 +61,13 @@ public class FileBrowserPanel extends BorderPane {
     private Label sharedPathLabel;
     private Button refreshButton;
     private Button shareButton;
+    private Label transferStatusLabel;
+    private Button pauseTransfersButton;
+    private Button cancelTransfersButton;
+    private boolean transfersPaused = false;
+    private final AtomicReference<TransferQueue.Summary> pendingTransferSummary = new AtomicReference<>();
+    private final ProgressPublisher.View transferStatusView = this::publishTransferStatus;
+    private final AtomicLong listingGeneration = new AtomicLong();
 
     private volatile String globalCurrentPath = "/shared";
     private volatile String yourDirectoryCurrentPath = "/username";
@@ -59,6 +89,8 @@ public class FileBrowserPanel extends BorderPane {
 
         String initialHost = connectionPanel.getCurrentHost();
         this.apiClient = new FolderPermissionsApiClient(initialHost != null ? initialHost : "localhost");
+        this.transferQueue = new TransferQueue(ftpService);
+        this.directoryTransferService = new DirectoryTransferService(ftpService, transferQueue);
 
         initComponents();
         layoutComponents();
@@ -84,13 +116,88 @@ public class FileBrowserPanel extends BorderPane {
 
         refreshButton = new Button("\uD83D\uDD04 Refresh");
         refreshButton.getStyleClass().add("primary");
-        refreshButton.setOnAction(e -> refresh());
+        refreshButton.setOnAction(e -> {
+            ftpService.getListingCache().clear();
+            refresh();
+        });
 
         shareButton = new Button("\uD83D\uDCE4 Share");
         shareButton.getStyleClass().add("success");
         shareButton.setDisable(true);
         shareButton.setOnAction(e -> handleShare());
 
+        transferStatusLabel = new Label("No transfers");
+        transferStatusLabel.getStyleClass().add("status-disconnected");
+        Tooltip latencyTooltip = new Tooltip();
+        latencyTooltip.setOnShowing(e -> latencyTooltip.setText(formatNavigationLatency()));
+        transferStatusLabel.setTooltip(latencyTooltip);
+
+        pauseTransfersButton = new Button("\u23F8 Pause");
+        pauseTransfersButton.setDisable(true);
+        pauseTransfersButton.setOnAction(e -> toggleTransfersPaused());
+
+        cancelTransfersButton = new Button("\u2716 Cancel all");
+        cancelTransfersButton.getStyleClass().add("danger");
+        cancelTransfersButton.setDisable(true);
+        cancelTransfersButton.setOnAction(e -> transferQueue.cancelAll());
+
+        transferQueue.addSummaryListener(summary -> {
+            pendingTransferSummary.set(summary);
+            ProgressPublisher.markDirty(transferStatusView);
+        });
+    }
+
+    private void toggleTransfersPaused() {
+        transfersPaused = !transfersPaused;
+        if (transfersPaused) {
+            transferQueue.pauseAll();
+            pauseTransfersButton.setText("\u25B6 Resume");
+        } else {
+            transferQueue.resumeAll();
+            pauseTransfersButton.setText("\u23F8 Pause");
+        }
+    }
+
+    private void publishTransferStatus() {
+        TransferQueue.Summary summary = pendingTransferSummary.getAndSet(null);
+        if (summary != null) {
+            updateTransferStatus(summary);
+        }
+    }
+
+    private void updateTransferStatus(TransferQueue.Summary summary) {
+        boolean active = summary.getActive() > 0;
+        pauseTransfersButton.setDisable(!active);
+        cancelTransfersButton.setDisable(!active);
+        if (!active) {
+            transfersPaused = false;
+            pauseTransfersButton.setText("\u23F8 Pause");
+            transferStatusLabel.setText(summary.getFailed() > 0
+                ? "Transfers finished, " + summary.getFailed() + " failed"
+                : "No transfers");
+            return;
+        }
+
+        int done = summary.getCompleted() + summary.getFailed() + summary.getCancelled();
+        String text = "Transfers: " + done + "/" + summary.getTotal()
+            + " \u2022 " + formatBytes(summary.getTransferredBytes()) + " of " + formatBytes(summary.getTotalBytes())
+            + String.format(" (%.0f%%)", summary.getProgress() * 100);
+        if (summary.getRunning() > 0) {
+            text += " \u2022 " + formatBytes(summary.getSpeedBytesPerSecond()) + "/s";
+        }
+        if (summary.getPaused() > 0) {
+            text += " \u2022 " + summary.getPaused() + " paused";
+        }
+        transferStatusLabel.setText(text);
+    }
+
+    private String formatNavigationLatency() {
+        LatencyTracker latency = ftpService.getNavigationLatency();
+        if (latency.getCount() == 0) {
+            return "Navigation latency: no samples yet";
+        }
+        return String.format("Navigation latency: p50 %.0f ms \u2022 p99 %.0f ms (%d requests)",
+            latency.getP50Millis(), latency.getP99Millis(), latency.getCount());
     }
 
     private TableView<FtpFileInfo> createFileTable(FolderType folderType) {
@@ -127,6 +234,8 @@ public class FileBrowserPanel extends BorderPane {
         TableColumn<FtpFileInfo, String>[] columns = new TableColumn[] {nameColumn, typeColumn, sizeColumn, dateColumn};
         table.getColumns().addAll(columns);
 
+        table.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+
         final FolderType finalFolderType = folderType;
         table.setRowFactory(tv -> {
             TableRow<FtpFileInfo> row = new TableRow<>();
@@ -156,16 +265,37 @@ public class FileBrowserPanel extends BorderPane {
         MenuItem uploadFileItem = new MenuItem("Upload file");
         uploadFileItem.setOnAction(e -> handleUploadFile(folderType));
 
+        MenuItem uploadFolderItem = new MenuItem("Upload folder");
+        uploadFolderItem.setOnAction(e -> handleUploadDirectory(folderType));
+
         MenuItem downloadFileItem = new MenuItem("Download file");
         downloadFileItem.setOnAction(e -> {
+            List<FtpFileInfo> selection = new ArrayList<>(table.getSelectionModel().getSelectedItems());
+            if (selection.size() > 1) {
+                handleDownloadSelection(folderType, selection);
+                return;
+            }
             FtpFileInfo selected = table.getSelectionModel().getSelectedItem();
             if (selected != null && !selected.isDirectory()) {
                 handleDownloadFile(folderType, selected);
             }
         });
 
+        MenuItem downloadFolderItem = new MenuItem("Download folder");
+        downloadFolderItem.setOnAction(e -> {
+            FtpFileInfo selected = table.getSelectionModel().getSelectedItem();
+            if (selected != null && selected.isDirectory()) {
+                handleDownloadDirectory(folderType, selected);
+            }
+        });
+
         MenuItem deleteItem = new MenuItem("Delete");
         deleteItem.setOnAction(e -> {
+            List<FtpFileInfo> selection = new ArrayList<>(table.getSelectionModel().getSelectedItems());
+            if (selection.size() > 1) {
+                handleDeleteSelection(folderType, selection);
+                return;
+            }
             FtpFileInfo selected = table.getSelectionModel().getSelectedItem();
             if (selected != null) {
                 handleDelete(folderType, selected);
@@ -213,22 +343,24 @@ public class FileBrowserPanel extends BorderPane {
                     }
                 }
 
-                updateContextMenuItems(createFolderItem, uploadFileItem, downloadFileItem, deleteItem, selected, hasWrite, hasExecute);
+                updateContextMenuItems(createFolderItem, uploadFileItem, uploadFolderItem, downloadFileItem, downloadFolderItem, deleteItem, selected, hasWrite, hasExecute);
             } else if (folderType == FolderType.GLOBAL) {
                 boolean hasWrite = currentGlobalFolderWrite;
                 boolean hasExecute = currentGlobalFolderExecute;
 
 
-                updateContextMenuItems(createFolderItem, uploadFileItem, downloadFileItem, deleteItem, selected, hasWrite, hasExecute);
+                updateContextMenuItems(createFolderItem, uploadFileItem, uploadFolderItem, downloadFileItem, downloadFolderItem, deleteItem, selected, hasWrite, hasExecute);
             } else if (folderType == FolderType.YOUR_DIRECTORY) {
                 createFolderItem.setDisable(false);
                 uploadFileItem.setDisable(false);
+                uploadFolderItem.setDisable(false);
 
                 if (selected != null && !selected.isDirectory()) {
                     downloadFileItem.setDisable(false);
                 } else {
                     downloadFileItem.setDisable(true);
                 }
+                downloadFolderItem.setDisable(selected == null || !selected.isDirectory());
 
                 if (selected != null) {
                     deleteItem.setDisable(false);
@@ -236,9 +368,23 @@ public class FileBrowserPanel extends BorderPane {
                     deleteItem.setDisable(true);
                 }
             }
+
+            int selectedCount = table.getSelectionModel().getSelectedItems().size();
+            if (selectedCount > 1) {
+                boolean canExecute = folderType == FolderType.YOUR_DIRECTORY
+                    || (folderType == FolderType.GLOBAL ? currentGlobalFolderExecute : currentSharedFolderExecute);
+                downloadFileItem.setText("Download selected (" + selectedCount + ")");
+                downloadFileItem.setDisable(!canExecute);
+                downloadFolderItem.setDisable(true);
+                deleteItem.setText("Delete selected (" + selectedCount + ")");
+                deleteItem.setDisable(!canExecute);
+            } else {
+                downloadFileItem.setText("Download file");
+                deleteItem.setText("Delete");
+            }
         });
 
-        contextMenu.getItems().addAll(createFolderItem, uploadFileItem, new SeparatorMenuItem(), downloadFileItem, deleteItem);
+        contextMenu.getItems().addAll(createFolderItem, uploadFileItem, uploadFolderItem, new SeparatorMenuItem(), downloadFileItem, downloadFolderItem, deleteItem);
 
         return contextMenu;
     }
@@ -275,15 +421,21 @@ public class FileBrowserPanel extends BorderPane {
         return result.toString();
     }
 
-    private void updateContextMenuItems(MenuItem createFolderItem, MenuItem uploadFileItem, MenuItem downloadFileItem, MenuItem deleteItem,
-                                       FtpFileInfo selected, boolean hasWrite, boolean hasExecute) {
+    private void updateContextMenuItems(MenuItem createFolderItem, MenuItem uploadFileItem, MenuItem uploadFolderItem, MenuItem downloadFileItem,
+                                       MenuItem downloadFolderItem, MenuItem deleteItem, FtpFileInfo selected, boolean hasWrite, boolean hasExecute) {
         createFolderItem.setDisable(!hasWrite);
         uploadFileItem.setDisable(!hasWrite);
+        uploadFolderItem.setDisable(!hasWrite);
         if (selected != null && !selected.isDirectory()) {
             downloadFileItem.setDisable(!hasExecute);
         } else {
             downloadFileItem.setDisable(true);
         }
+        if (selected != null && selected.isDirectory()) {
+            downloadFolderItem.setDisable(!hasExecute);
+        } else {
+            downloadFolderItem.setDisable(true);
+        }
 
         if (selected != null) {
             deleteItem.setDisable(!hasExecute);
@@ -313,7 +465,7 @@ public class FileBrowserPanel extends BorderPane {
         HBox topPanel = new HBox(15);
         topPanel.getStyleClass().add("top-panel");
         topPanel.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
-        topPanel.getChildren().addAll(refreshButton, shareButton);
+        topPanel.getChildren().addAll(refreshButton, shareButton, new Separator(), transferStatusLabel, pauseTransfersButton, cancelTransfersButton);
 
         HBox columnsContainer = new HBox(15);
         columnsContainer.setPadding(new Insets(15));
@@ -472,6 +624,8 @@ public class FileBrowserPanel extends BorderPane {
         if (lastUsernameSeen == null || !lastUsernameSeen.equals(currentUsername)) {
             lastUsernameSeen = currentUsername;
 
+            FtpAsyncExecutor.shared().submit(ftpService, operation -> refreshBandwidthLimits());
+
             globalCurrentPath = "/shared";
             yourDirectoryCurrentPath = "/" + currentUsername;
             sharedCurrentPath = "/";
@@ -500,242 +654,265 @@ public class FileBrowserPanel extends BorderPane {
             yourDirectoryCurrentPath = userRootPath;
         }
 
-        new Thread(() -> {
-            final String globalPath = globalPathOverride != null ? globalPathOverride : globalCurrentPath;
-            final String yourDirectoryPath = yourDirectoryPathOverride != null ? yourDirectoryPathOverride : yourDirectoryCurrentPath;
-            final String sharedPath = normalizedSharedPathOverride != null ? normalizedSharedPathOverride : sharedCurrentPath;
-
-            try {
-                String savedPath = ftpService.getCurrentDirectory();
-
-                List<FtpFileInfo> globalFiles = new ArrayList<>();
-                boolean globalHasRead = false;
-                boolean globalHasWrite = false;
-                boolean globalHasExecute = false;
+        final long generation = listingGeneration.incrementAndGet();
+        final String globalPath = globalPathOverride != null ? globalPathOverride : globalCurrentPath;
+        final String yourDirectoryPath = yourDirectoryPathOverride != null ? yourDirectoryPathOverride : yourDirectoryCurrentPath;
+        final String sharedPath = normalizedSharedPathOverride != null ? normalizedSharedPathOverride : sharedCurrentPath;
 
-                try {
-                    FolderPermissionsApiClient.UserPermissions userPermissions = apiClient.getUserPermissions(currentUsername);
-                    globalHasRead = userPermissions.isRead();
-                    globalHasWrite = userPermissions.isWrite();
-                    globalHasExecute = userPermissions.isExecute();
-                } catch (Exception e) {
-                }
+        ListingFeed globalFeed = new ListingFeed(generation, globalTable, globalPathLabel,
+            "Global path: " + globalPath, FolderType.GLOBAL, globalPath);
+        ListingFeed yourDirectoryFeed = new ListingFeed(generation, yourDirectoryTable, yourDirectoryPathLabel,
+            "Your Directory path: " + yourDirectoryPath, FolderType.YOUR_DIRECTORY, yourDirectoryPath);
+        ListingFeed sharedFeed = new ListingFeed(generation, sharedTable, sharedPathLabel,
+            "Shared by User path: " + formatSharedPath(sharedPath), FolderType.SHARED_BY_USER, sharedPath);
 
-                final boolean finalGlobalHasRead = globalHasRead;
-                final boolean finalGlobalHasWrite = globalHasWrite;
-                final boolean finalGlobalHasExecute = globalHasExecute;
+        FtpAsyncExecutor executor = FtpAsyncExecutor.shared();
+        CompletableFuture<Void> globalRefresh = executor.submit(ftpService, operation -> {
+            try {
+                refreshGlobalSection(globalPath, globalFeed);
+            } finally {
+                globalFeed.complete();
+            }
+            return null;
+        });
+        CompletableFuture<Void> yourDirectoryRefresh = executor.submit(ftpService, operation -> {
+            try {
+                refreshYourDirectorySection(yourDirectoryPath, yourDirectoryFeed);
+            } finally {
+                yourDirectoryFeed.complete();
+            }
+            return null;
+        });
+        CompletableFuture<Void> sharedRefresh = executor.submit(ftpService, operation -> {
+            try {
+                refreshSharedSection(sharedPath, sharedFeed);
+            } finally {
+                sharedFeed.complete();
+            }
+            return null;
+        });
 
+        CompletableFuture.allOf(globalRefresh, yourDirectoryRefresh, sharedRefresh).whenComplete((ignored, error) -> {
+            if (error == null) {
+                return;
+            }
+            Throwable e = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!ftpService.isConnected()) {
+                listingGeneration.incrementAndGet();
                 Platform.runLater(() -> {
-                    currentGlobalFolderRead = finalGlobalHasRead;
-                    currentGlobalFolderWrite = finalGlobalHasWrite;
-                    currentGlobalFolderExecute = finalGlobalHasExecute;
+                    clearAllTables();
+                    connectionPanel.forceDisconnect("Disconnected (server unavailable)");
+                    globalPathLabel.setText("Global path: Not connected");
+                    yourDirectoryPathLabel.setText("Your Directory path: Not connected");
+                    sharedPathLabel.setText("Shared by User path: Not connected");
                 });
-
-                try {
-                    String currentDirBefore = ftpService.getCurrentDirectory();
-                    String normalizedGlobalPath = globalPath.replace('\\', '/');
-                    String normalizedCurrentDir = currentDirBefore.replace('\\', '/');
-                    boolean alreadyInTargetDir = normalizedCurrentDir.equals(normalizedGlobalPath) ||
-                                                 normalizedCurrentDir.equals(normalizedGlobalPath + "/") ||
-                                                 normalizedGlobalPath.equals(normalizedCurrentDir + "/");
-
-                    boolean changedSuccessfully = alreadyInTargetDir;
-                    if (!alreadyInTargetDir) {
-                        changedSuccessfully = ftpService.changeDirectory(globalPath);
-                    }
-
-                    if (changedSuccessfully) {
-                        List<FtpFileInfo> filesList = ftpService.listFiles("");
-                        if (filesList != null) {
-                            for (FtpFileInfo file : filesList) {
-                                file.setFolderType(FolderType.GLOBAL);
-                                String fullPath = globalPath.equals("/shared")
-                                    ? "/shared/" + file.getName()
-                                    : globalPath + "/" + file.getName();
-                                file.setFullPath(fullPath);
-                                globalFiles.add(file);
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    if (!ftpService.isConnected()) {
-                        throw e;
+            } else {
+                Platform.runLater(() -> {
+                    String reason = ftpService.getLastErrorMessage();
+                    if (reason == null || reason.isBlank()) {
+                        reason = "Failed to list files: " + e.getMessage();
                     }
-                }
+                    showAlert("Error", reason);
+                });
+            }
+        });
+    }
 
-                List<FtpFileInfo> yourDirectoryFiles = new ArrayList<>();
-                try {
+    private void refreshGlobalSection(String globalPath, ListingFeed globalFeed) throws Exception {
+        boolean globalHasRead = false;
+        boolean globalHasWrite = false;
+        boolean globalHasExecute = false;
+
+        try {
+            FolderPermissionsApiClient.UserPermissions userPermissions = apiClient.getUserPermissions(currentUsername);
+            globalHasRead = userPermissions.isRead();
+            globalHasWrite = userPermissions.isWrite();
+            globalHasExecute = userPermissions.isExecute();
+        } catch (Exception e) {
+        }
 
-                    String currentDirBefore = ftpService.getCurrentDirectory();
+        final boolean finalGlobalHasRead = globalHasRead;
+        final boolean finalGlobalHasWrite = globalHasWrite;
+        final boolean finalGlobalHasExecute = globalHasExecute;
 
-                    String normalizedYourDirPath = yourDirectoryPath.replace('\\', '/');
-                    String normalizedCurrentDir = currentDirBefore.replace('\\', '/');
-                    boolean alreadyInTargetDir = normalizedCurrentDir.equals(normalizedYourDirPath) ||
-                                                 normalizedCurrentDir.equals(normalizedYourDirPath + "/") ||
-                                                 normalizedYourDirPath.equals(normalizedCurrentDir + "/");
+        Platform.runLater(() -> {
+            currentGlobalFolderRead = finalGlobalHasRead;
+            currentGlobalFolderWrite = finalGlobalHasWrite;
+            currentGlobalFolderExecute = finalGlobalHasExecute;
+        });
 
-                    boolean changedSuccessfully = alreadyInTargetDir;
-                    if (!alreadyInTargetDir) {
-                        changedSuccessfully = ftpService.changeDirectory(yourDirectoryPath);
-                        if (changedSuccessfully) {
-                            String actualPath = ftpService.getCurrentDirectory();
-                        }
-                    } else {
-                    }
+        try {
+            ftpService.listFiles(globalPath, globalFeed);
+        } catch (Exception e) {
+            if (!ftpService.isConnected()) {
+                throw e;
+            }
+        }
+    }
 
-                    if (changedSuccessfully) {
-                        List<FtpFileInfo> filesList = ftpService.listFiles("");
-
-                        if (filesList != null) {
-                            for (FtpFileInfo file : filesList) {
-                                file.setFolderType(FolderType.YOUR_DIRECTORY);
-                                String fullPath;
-                                if (yourDirectoryPath.equals("/" + currentUsername)) {
-                                    fullPath = "/" + currentUsername + "/" + file.getName();
-                                } else {
-                                    fullPath = yourDirectoryPath + "/" + file.getName();
-                                }
-                                file.setFullPath(fullPath);
-                                yourDirectoryFiles.add(file);
-                            }
-                        } else {
-                        }
-                    } else {
-                        String currentDirAfter = null;
-                        try {
-                            currentDirAfter = ftpService.getCurrentDirectory();
-                        } catch (Exception e) {
-                        }
-                    }
-                } catch (Exception e) {
-                    if (!ftpService.isConnected()) {
-                        throw e;
-                    }
-                }
+    private void refreshYourDirectorySection(String yourDirectoryPath, ListingFeed yourDirectoryFeed) throws Exception {
+        try {
+            ftpService.listFiles(yourDirectoryPath, yourDirectoryFeed);
+        } catch (Exception e) {
+            if (!ftpService.isConnected()) {
+                throw e;
+            }
+        }
+    }
 
-                List<FtpFileInfo> sharedFiles = new ArrayList<>();
-                if (sharedPath.equals("/")) {
-                    currentSharedFolderWrite = false;
-                    currentSharedFolderExecute = false;
+    private void refreshSharedSection(String sharedPath, ListingFeed sharedFeed) throws Exception {
+        List<FtpFileInfo> sharedFiles = new ArrayList<>();
+        if (sharedPath.equals("/")) {
+            currentSharedFolderWrite = false;
+            currentSharedFolderExecute = false;
 
+            try {
+                List<FolderPermissionsApiClient.SharedFolder> sharedFoldersList = apiClient.getSharedFolders(currentUsername);
+                for (FolderPermissionsApiClient.SharedFolder sharedFolder : sharedFoldersList) {
                     try {
-                        List<FolderPermissionsApiClient.SharedFolder> sharedFoldersList = apiClient.getSharedFolders(currentUsername);
-                        for (FolderPermissionsApiClient.SharedFolder sharedFolder : sharedFoldersList) {
-                            try {
-                                FtpFileInfo folderInfo = new FtpFileInfo(
-                                    sharedFolder.getFolderName(),
-                                    true,
-                                    0,
-                                    null,
-                                    FolderType.SHARED_BY_USER,
-                                    sharedFolder.getFolderPath()
-                                );
-                                sharedFiles.add(folderInfo);
-                            } catch (Exception e) {
-                            }
-                        }
+                        FtpFileInfo folderInfo = new FtpFileInfo(
+                            sharedFolder.getFolderName(),
+                            true,
+                            0,
+                            null,
+                            FolderType.SHARED_BY_USER,
+                            sharedFolder.getFolderPath()
+                        );
+                        sharedFiles.add(folderInfo);
                     } catch (Exception e) {
-                        if (!ftpService.isConnected()) {
-                            throw e;
-                        }
                     }
-                } else {
-
-                    boolean hasWrite = false;
-                    boolean hasExecute = false;
-                    try {
-                        List<FolderPermissionsApiClient.SharedFolder> sharedFoldersList = apiClient.getSharedFolders(currentUsername);
-                        String normalizedSharedPath = normalizePath(sharedPath);
-
-                        FolderPermissionsApiClient.SharedFolder bestMatch = null;
-                        int bestMatchLength = -1;
-
-                        for (FolderPermissionsApiClient.SharedFolder sharedFolder : sharedFoldersList) {
-                            String folderPath = sharedFolder.getFolderPath();
-                            String normalizedFolderPath = normalizePath(folderPath);
-                            boolean matches = normalizedSharedPath.equals(normalizedFolderPath) || normalizedSharedPath.startsWith(normalizedFolderPath + "/");
-                            if (matches) {
-                                if (normalizedFolderPath.length() > bestMatchLength) {
-                                    bestMatch = sharedFolder;
-                                    bestMatchLength = normalizedFolderPath.length();
-                                }
-                            }
-                        }
+                }
+            } catch (Exception e) {
+                if (!ftpService.isConnected()) {
+                    throw e;
+                }
+            }
+            sharedFeed.onEntries(sharedFiles, sharedFiles.size());
+            return;
+        }
 
-                        if (bestMatch != null) {
-                            hasWrite = bestMatch.isWrite();
-                            hasExecute = bestMatch.isExecute();
-                        } else {
-                        }
-                    } catch (Exception e) {
+        boolean hasWrite = false;
+        boolean hasExecute = false;
+        try {
+            List<FolderPermissionsApiClient.SharedFolder> sharedFoldersList = apiClient.getSharedFolders(currentUsername);
+            String normalizedSharedPath = normalizePath(sharedPath);
+
+            FolderPermissionsApiClient.SharedFolder bestMatch = null;
+            int bestMatchLength = -1;
+
+            for (FolderPermissionsApiClient.SharedFolder sharedFolder : sharedFoldersList) {
+                String folderPath = sharedFolder.getFolderPath();
+                String normalizedFolderPath = normalizePath(folderPath);
+                boolean matches = normalizedSharedPath.equals(normalizedFolderPath) || normalizedSharedPath.startsWith(normalizedFolderPath + "/");
+                if (matches) {
+                    if (normalizedFolderPath.length() > bestMatchLength) {
+                        bestMatch = sharedFolder;
+                        bestMatchLength = normalizedFolderPath.length();
                     }
+                }
+            }
 
-                    final boolean finalHasWrite = hasWrite;
-                    final boolean finalHasExecute = hasExecute;
+            if (bestMatch != null) {
+                hasWrite = bestMatch.isWrite();
+                hasExecute = bestMatch.isExecute();
+            }
+        } catch (Exception e) {
+        }
 
-                    try {
-                        if (ftpService.changeDirectory(sharedPath)) {
-                            List<FtpFileInfo> filesList = ftpService.listFiles("");
-                            if (filesList != null) {
-
-                                for (FtpFileInfo file : filesList) {
-                                    file.setFolderType(FolderType.SHARED_BY_USER);
-                                    String fileFullPath = sharedPath + "/" + file.getName();
-                                    file.setFullPath(fileFullPath);
-                                    sharedFiles.add(file);
-                                }
-                            } else {
-                            }
-                        } else {
-                        }
-                    } catch (Exception e) {
-                    }
+        final boolean finalHasWrite = hasWrite;
+        final boolean finalHasExecute = hasExecute;
 
-                    Platform.runLater(() -> {
-                        currentSharedFolderWrite = finalHasWrite;
-                        currentSharedFolderExecute = finalHasExecute;
-                    });
-                }
+        try {
+            ftpService.listFiles(sharedPath, sharedFeed);
+        } catch (Exception e) {
+        }
 
-                try {
-                    ftpService.changeDirectory(savedPath);
-                } catch (Exception e) {
-                    if (!ftpService.isConnected()) {
-                        throw e;
-                    }
+        Platform.runLater(() -> {
+            currentSharedFolderWrite = finalHasWrite;
+            currentSharedFolderExecute = finalHasExecute;
+        });
+    }
+
+    private class ListingFeed implements FtpClientService.ListingCallback, ProgressPublisher.View {
+        private static final List<FtpFileInfo> RESET = List.of();
+
+        private final long generation;
+        private final TableView<FtpFileInfo> table;
+        private final Label pathLabel;
+        private final String pathText;
+        private final FolderType folderType;
+        private final String directory;
+        private final ConcurrentLinkedQueue<List<FtpFileInfo>> pending = new ConcurrentLinkedQueue<>();
+        private volatile int loaded = 0;
+        private volatile boolean complete = false;
+        private boolean started = false;
+
+        ListingFeed(long generation, TableView<FtpFileInfo> table, Label pathLabel, String pathText,
+                    FolderType folderType, String directory) {
+            this.generation = generation;
+            this.table = table;
+            this.pathLabel = pathLabel;
+            this.pathText = pathText;
+            this.folderType = folderType;
+            this.directory = directory;
+        }
+
+        @Override
+        public void onEntries(List<FtpFileInfo> batch, int totalEntries) {
+            for (FtpFileInfo file : batch) {
+                if (file.getFullPath() == null) {
+                    file.setFolderType(folderType);
+                    file.setFullPath(directory.endsWith("/") ? directory + file.getName() : directory + "/" + file.getName());
                 }
+            }
+            pending.add(batch);
+            loaded = totalEntries;
+            ProgressPublisher.markDirty(this);
+        }
 
+        @Override
+        public void onReset() {
+            pending.add(RESET);
+            loaded = 0;
+            ProgressPublisher.markDirty(this);
+        }
 
-                Platform.runLater(() -> {
-                    globalTable.getItems().setAll(globalFiles);
-                    yourDirectoryTable.getItems().setAll(yourDirectoryFiles);
-                    sharedTable.getItems().setAll(sharedFiles);
-                    globalPathLabel.setText("Global path: " + globalPath);
-                    yourDirectoryPathLabel.setText("Your Directory path: " + yourDirectoryPath);
-                    String formattedSharedPath = formatSharedPath(sharedPath);
-                    sharedPathLabel.setText("Shared by User path: " + formattedSharedPath);
-                });
+        void complete() {
+            complete = true;
+            ProgressPublisher.markDirty(this);
+        }
 
-            } catch (Exception e) {
-                if (!ftpService.isConnected()) {
-                    Platform.runLater(() -> {
-                        clearAllTables();
-                        connectionPanel.forceDisconnect("Disconnected (server unavailable)");
-                        globalPathLabel.setText("Global path: Not connected");
-                        yourDirectoryPathLabel.setText("Your Directory path: Not connected");
-                        sharedPathLabel.setText("Shared by User path: Not connected");
-                    });
+        @Override
+        public void publish() {
+            if (generation != listingGeneration.get()) {
+                return;
+            }
+            boolean done = complete;
+            List<FtpFileInfo> rows = new ArrayList<>();
+            boolean reset = false;
+            List<FtpFileInfo> batch;
+            while ((batch = pending.poll()) != null) {
+                if (batch == RESET) {
+                    rows.clear();
+                    reset = true;
                 } else {
-                    Platform.runLater(() -> {
-                        String reason = ftpService.getLastErrorMessage();
-                        if (reason == null || reason.isBlank()) {
-                            reason = "Failed to list files: " + e.getMessage();
-                        }
-                        showAlert("Error", reason);
-                    });
+                    rows.addAll(batch);
                 }
             }
-        }).start();
+            if (!started) {
+                if (rows.isEmpty() && !done) {
+                    pathLabel.setText(pathText + " (loading\u2026)");
+                    return;
+                }
+                table.getItems().setAll(rows);
+                started = true;
+            } else if (reset) {
+                table.getItems().setAll(rows);
+            } else if (!rows.isEmpty()) {
+                table.getItems().addAll(rows);
+            }
+            pathLabel.setText(done ? pathText : pathText + " (loading " + loaded + " entries\u2026)");
+        }
     }
 
     private void clearAllTables() {
@@ -775,71 +952,38 @@ public class FileBrowserPanel extends BorderPane {
             ? file.getFullPath()
             : file.getName();
 
-        new Thread(() -> {
+        FtpAsyncExecutor.shared().submit(ftpService, operation -> {
             try {
-                String savedCurrentDir = null;
-
-                try {
-                    savedCurrentDir = ftpService.getCurrentDirectory();
-                } catch (Exception e) {
-                }
-
                 if (sectionType == FolderType.YOUR_DIRECTORY) {
                     currentUsername = connectionPanel.getCurrentUsername();
                     if (currentUsername == null || currentUsername.isEmpty()) {
                         Platform.runLater(() -> showAlert("Error", "Username not available"));
-                        return;
+                        return null;
                     }
-                } else if (sectionType == FolderType.GLOBAL) {
-                } else if (sectionType == FolderType.SHARED_BY_USER) {
                 }
 
-                String targetDirectoryPath;
-                if (sectionType == FolderType.SHARED_BY_USER && file.getFullPath() != null) {
-                    targetDirectoryPath = file.getFullPath();
-                } else {
-                    if (!ftpService.changeDirectory(finalCurrentPathForSection)) {
-                        Platform.runLater(() -> {
-                            String reason = ftpService.getLastErrorMessage();
-                            if (reason == null || reason.isBlank()) {
-                                reason = "Failed to change to directory: " + finalCurrentPathForSection;
-                            }
-                            showAlert("Error", reason);
-                        });
-                        return;
-                    }
-
-                    String afterStep1 = ftpService.getCurrentDirectory();
-
-                    targetDirectoryPath = targetPath;
-                }
+                // Resolve against the section's own path: the other sections list concurrently on the same service.
+                String targetDirectoryPath = sectionType == FolderType.SHARED_BY_USER && file.getFullPath() != null
+                    ? NavigationService.normalizePath(file.getFullPath())
+                    : NavigationService.joinPath(finalCurrentPathForSection, file.getName());
 
                 if (ftpService.changeDirectory(targetDirectoryPath)) {
-                    String actualPath = ftpService.getCurrentDirectory();
-
-                    final String finalActualPath = actualPath;
-
                     Platform.runLater(() -> {
-                        String pathBeforeUpdate = null;
-
                         switch (sectionType) {
                             case GLOBAL:
-                                pathBeforeUpdate = globalCurrentPath;
-                                globalCurrentPath = finalActualPath;
+                                globalCurrentPath = targetDirectoryPath;
                                 break;
                             case YOUR_DIRECTORY:
-                                pathBeforeUpdate = yourDirectoryCurrentPath;
-                                yourDirectoryCurrentPath = finalActualPath;
+                                yourDirectoryCurrentPath = targetDirectoryPath;
                                 break;
                             case SHARED_BY_USER:
-                                pathBeforeUpdate = sharedCurrentPath;
-                                sharedCurrentPath = normalizePath(finalActualPath);
+                                sharedCurrentPath = targetDirectoryPath;
                                 break;
                         }
 
-                        String refreshGlobalPath = sectionType == FolderType.GLOBAL ? finalActualPath : null;
-                        String refreshYourDirectoryPath = sectionType == FolderType.YOUR_DIRECTORY ? finalActualPath : null;
-                        String refreshSharedPath = sectionType == FolderType.SHARED_BY_USER ? finalActualPath : null;
+                        String refreshGlobalPath = sectionType == FolderType.GLOBAL ? targetDirectoryPath : null;
+                        String refreshYourDirectoryPath = sectionType == FolderType.YOUR_DIRECTORY ? targetDirectoryPath : null;
+                        String refreshSharedPath = sectionType == FolderType.SHARED_BY_USER ? targetDirectoryPath : null;
                         refresh(refreshGlobalPath, refreshYourDirectoryPath, refreshSharedPath);
                     });
                 } else {
@@ -860,9 +1004,9 @@ public class FileBrowserPanel extends BorderPane {
                     }
                     showAlert("Error", reason);
                 });
-            } finally {
             }
-        }).start();
+            return null;
+        });
     }
 
     private void navigateUpInSection(FolderType sectionType) {
@@ -891,7 +1035,7 @@ public class FileBrowserPanel extends BorderPane {
         final String finalCurrentYourDirectoryPath = currentYourDirectoryPath;
         final String finalCurrentSharedPath = currentSharedPath;
 
-        new Thread(() -> {
+        FtpAsyncExecutor.shared().submit(ftpService, operation -> {
             try {
                 String newPath = null;
                 String currentUsernameForCheck = connectionPanel.getCurrentUsername();
@@ -899,7 +1043,7 @@ public class FileBrowserPanel extends BorderPane {
                 switch (sectionType) {
                     case GLOBAL:
                         if (finalCurrentGlobalPath.equals("/shared")) {
-                            return;
+                            return null;
                         }
                         newPath = NavigationService.getParentPath(finalCurrentGlobalPath);
                         if (!newPath.startsWith("/shared")) {
@@ -909,12 +1053,12 @@ public class FileBrowserPanel extends BorderPane {
                     case YOUR_DIRECTORY:
                         if (currentUsernameForCheck == null || currentUsernameForCheck.isEmpty()) {
                             Platform.runLater(() -> showAlert("Error", "Username not available"));
-                            return;
+                            return null;
                         }
                         String userRootPath = "/" + currentUsernameForCheck;
 
                         if (finalCurrentYourDirectoryPath.equals(userRootPath)) {
-                            return;
+                            return null;
                         }
                         newPath = NavigationService.getParentPath(finalCurrentYourDirectoryPath);
                         if (!newPath.startsWith(userRootPath)) {
@@ -923,7 +1067,7 @@ public class FileBrowserPanel extends BorderPane {
                         break;
                     case SHARED_BY_USER:
                         if (finalCurrentSharedPath.equals("/")) {
-                            return;
+                            return null;
                         }
                         String parentPath = NavigationService.getParentPath(finalCurrentSharedPath);
                         String normalizedCurrent = normalizePath(finalCurrentSharedPath);
@@ -963,7 +1107,7 @@ public class FileBrowserPanel extends BorderPane {
                 }
 
                 if (newPath == null) {
-                    return;
+                    return null;
                 }
 
                 final String finalNewPath = newPath;
@@ -999,9 +1143,9 @@ public class FileBrowserPanel extends BorderPane {
                     }
                     showAlert("Error", reason);
                 });
-            } finally {
             }
-        }).start();
+            return null;
+        });
     }
 
     private void handleCreateDirectory(FolderType folderType) {
@@ -1106,13 +1250,19 @@ public class FileBrowserPanel extends BorderPane {
 
 
         FileChooser fileChooser = new FileChooser();
-        fileChooser.setTitle("Select File to Upload");
+        fileChooser.setTitle("Select Files to Upload");
         Window window = sharedPathLabel.getScene().getWindow();
-        File selectedFile = fileChooser.showOpenDialog(window);
+        List<File> selectedFiles = fileChooser.showOpenMultipleDialog(window);
+
+        if (selectedFiles == null || selectedFiles.isEmpty()) {
+            return;
+        }
 
-        if (selectedFile == null) {
+        if (selectedFiles.size() > 1) {
+            startBatchUpload(folderType, selectedFiles, selectedFiles.size() + " files");
             return;
         }
+        File selectedFile = selectedFiles.get(0);
 
 
         String currentPathForSection = null;
@@ -1146,9 +1296,13 @@ public class FileBrowserPanel extends BorderPane {
         progressDialog.initOwner(ownerWindow);
 
         final boolean[] cancelled = {false};
+        final TransferQueue.Job[] cancelJob = {null};
         progressDialog.setResultConverter(buttonType -> {
             if (buttonType == ButtonType.CANCEL || buttonType.getButtonData() == ButtonBar.ButtonData.CANCEL_CLOSE) {
                 cancelled[0] = true;
+                if (cancelJob[0] != null) {
+                    cancelJob[0].cancel();
+                }
             }
             return null;
         });
@@ -1159,124 +1313,84 @@ public class FileBrowserPanel extends BorderPane {
 
         new Thread(() -> {
             try {
-                String savedPath = null;
-
-                try {
-                    savedPath = ftpService.getCurrentDirectory();
-                } catch (Exception e) {
-                }
-
-                String username = currentUsername;
-                Long rateLimit = null;
-                if (username != null) {
-                    try {
-                        rateLimit = apiClient.getUserRateLimit(username);
-                    } catch (Exception e) {
+                final long finalRateLimit = refreshBandwidthLimits();
+
+                boolean resumeUpload = false;
+                long remoteSize = ftpService.getRemoteFileSize(finalRemotePath);
+                if (remoteSize > 0 && remoteSize < fileSize) {
+                    Boolean resumeChoice = callOnFxThread(() -> askResumeUpload(fileName, remoteSize, fileSize));
+                    if (resumeChoice == null) {
+                        Platform.runLater(progressDialog::close);
+                        return;
                     }
+                    resumeUpload = resumeChoice;
                 }
-                if (rateLimit == null || rateLimit <= 0) {
-                    try {
-                        rateLimit = apiClient.getGlobalUploadLimit();
-                    } catch (Exception e) {
-                    }
+
+                if (cancelled[0]) {
+                    return;
                 }
-                final Long finalRateLimit = rateLimit;
 
-                String uploadPath = finalRemotePath;
+                cancelJob[0] = transferQueue.enqueueUpload(selectedFile, finalRemotePath, null, resumeUpload,
+                    TransferQueue.Priority.HIGH, new TransferQueue.JobListener() {
+                        @Override
+                        public void onProgress(TransferQueue.Job job, long bytesTransferred, long totalBytes, double speedBytesPerSecond) {
+                            double progress = totalBytes > 0 ? (double) bytesTransferred / totalBytes : 0.0;
+
+                            String speedStr;
+                            if (finalRateLimit > 0) {
+                                speedStr = formatBytes(speedBytesPerSecond) + "/s (limit: " + formatBytes(finalRateLimit) + "/s)"
+                                    + formatEta(bytesTransferred, totalBytes, speedBytesPerSecond);
+                            } else if (speedBytesPerSecond > 0) {
+                                speedStr = formatBytes(speedBytesPerSecond) + "/s" + formatEta(bytesTransferred, totalBytes, speedBytesPerSecond);
+                            } else {
+                                speedStr = "calculating...";
+                            }
+
+                            progressDialog.updateProgress(progress, speedStr);
+                        }
 
-                if (finalRemotePath.startsWith("/") && savedPath != null) {
-                    int lastSlash = finalRemotePath.lastIndexOf('/');
-                    if (lastSlash >= 0 && lastSlash < finalRemotePath.length() - 1) {
-                        String fileToUpload = finalRemotePath.substring(lastSlash + 1);
-                        String dirPath = finalRemotePath.substring(0, lastSlash);
-                        if (savedPath.equals(dirPath)) {
-                            uploadPath = fileToUpload;
-                        } else {
-                            if (ftpService.changeDirectory(dirPath)) {
-                                uploadPath = fileToUpload;
+                        @Override
+                        public void onStateChanged(TransferQueue.Job job) {
+                            switch (job.getState()) {
+                                case COMPLETED -> {
+                                    progressDialog.setCompleted();
+
+                                    final String refreshGlobalPath = folderType == FolderType.GLOBAL ? finalCurrentPathForSection : null;
+                                    final String refreshYourDirectoryPath = folderType == FolderType.YOUR_DIRECTORY ? finalCurrentPathForSection : null;
+                                    final String refreshSharedPath = folderType == FolderType.SHARED_BY_USER ? finalCurrentPathForSection : null;
+                                    Platform.runLater(() -> refresh(refreshGlobalPath, refreshYourDirectoryPath, refreshSharedPath));
+                                }
+                                case CANCELLED -> Platform.runLater(() -> {
+                                    progressDialog.close();
+                                    showAlert("Cancelled", "File upload was cancelled. The partial remote file was kept and can be resumed.");
+                                });
+                                case FAILED -> Platform.runLater(() -> {
+                                    progressDialog.close();
+                                    showAlert("Error", job.getErrorMessage());
+                                });
+                                default -> {
+                                }
                             }
                         }
-                    }
+                    });
+                if (cancelled[0]) {
+                    cancelJob[0].cancel();
                 }
+            } catch (Exception e) {
+                Platform.runLater(() -> {
+                    progressDialog.close();
+                    showAlert("Error", "Failed to upload file: " + e.getMessage());
+                });
+            }
+        }).start();
+    }
 
-                FtpClientService.UploadProgressCallback progressCallback = (bytesTransferred, totalBytes, speedBytesPerSecond) -> {
-                    if (cancelled[0]) {
-                        return false;
-                    }
-
-                    double progress = totalBytes > 0 ? (double) bytesTransferred / totalBytes : 0.0;
+    private void handleDownloadFile(FolderType folderType, FtpFileInfo fileInfo) {
 
-                    String speedStr;
-                    if (finalRateLimit != null && finalRateLimit > 0) {
-                        speedStr = formatBytes(speedBytesPerSecond) + "/s (limit: " + formatBytes(finalRateLimit) + "/s)";
-                    } else if (speedBytesPerSecond > 0) {
-                        speedStr = formatBytes(speedBytesPerSecond) + "/s";
-                    } else if (bytesTransferred > 0) {
-                        speedStr = "calculating...";
-                    } else {
-                        speedStr = "calculating...";
-                    }
-
-                    progressDialog.updateProgress(progress, speedStr);
-                    return true;
-                };
-
-                boolean success = ftpService.uploadFile(selectedFile, uploadPath, progressCallback, finalRateLimit);
-
-                if (cancelled[0]) {
-                    Platform.runLater(() -> {
-                        progressDialog.close();
-                        showAlert("Cancelled", "File upload was cancelled");
-                    });
-                    return;
-                }
-
-                if (success) {
-
-                    progressDialog.setCompleted();
-
-                    final String refreshGlobalPath = folderType == FolderType.GLOBAL ? finalCurrentPathForSection : null;
-                    final String refreshYourDirectoryPath = folderType == FolderType.YOUR_DIRECTORY ? finalCurrentPathForSection : null;
-                    final String refreshSharedPath = folderType == FolderType.SHARED_BY_USER ? finalCurrentPathForSection : null;
-                    Platform.runLater(() -> refresh(refreshGlobalPath, refreshYourDirectoryPath, refreshSharedPath));
-                } else {
-                    Platform.runLater(() -> {
-                        progressDialog.close();
-                        String reason = ftpService.getLastErrorMessage();
-                        if (reason == null || reason.isBlank()) {
-                            reason = "Failed to upload file: " + fileName;
-                        }
-                        showAlert("Error", reason);
-                    });
-                }
-
-                if (savedPath != null) {
-                    try {
-                        ftpService.changeDirectory(savedPath);
-                    } catch (Exception e) {
-                    }
-                }
-
-            } catch (Exception e) {
-                Platform.runLater(() -> {
-                    progressDialog.close();
-                    String reason = ftpService.getLastErrorMessage();
-                    if (reason == null || reason.isBlank()) {
-                        reason = "Failed to upload file: " + e.getMessage();
-                    }
-                    showAlert("Error", reason);
-                });
-            } finally {
-            }
-        }).start();
-    }
-
-    private void handleDownloadFile(FolderType folderType, FtpFileInfo fileInfo) {
-
-        if (!ftpService.isConnected()) {
-            showAlert("Error", "Not connected to FTP server");
-            return;
-        }
+        if (!ftpService.isConnected()) {
+            showAlert("Error", "Not connected to FTP server");
+            return;
+        }
 
         if (folderType == FolderType.SHARED_BY_USER && !currentSharedFolderExecute) {
             showAlert("Error", "You don't have execute permission to download files from this folder");
@@ -1340,15 +1454,30 @@ public class FileBrowserPanel extends BorderPane {
 
         long fileSize = fileInfo.getSize();
 
+        boolean resumeDownload = false;
+        DownloadJournal partial = DownloadJournal.load(targetFile);
+        if (partial != null
+                && normalizePath(partial.getRemotePath()).equals(normalizePath(finalRemotePath))
+                && (fileSize <= 0 || partial.getRemoteSize() == fileSize)) {
+            Boolean resumeChoice = askResumeDownload(fileInfo.getName(), partial.getCompletedBytes(), partial.getRemoteSize());
+            if (resumeChoice == null) {
+                return;
+            }
+            resumeDownload = resumeChoice;
+        }
+        final boolean finalResumeDownload = resumeDownload;
+
         DownloadProgressDialog progressDialog = new DownloadProgressDialog(fileInfo.getName());
 
         Window ownerWindow = sharedPathLabel.getScene().getWindow();
         progressDialog.initOwner(ownerWindow);
 
-        final boolean[] cancelled = {false};
+        final TransferQueue.Job[] cancelJob = {null};
         progressDialog.setResultConverter(buttonType -> {
             if (buttonType == ButtonType.CANCEL || buttonType.getButtonData() == ButtonBar.ButtonData.CANCEL_CLOSE) {
-                cancelled[0] = true;
+                if (cancelJob[0] != null) {
+                    cancelJob[0].cancel();
+                }
             }
             return null;
         });
@@ -1357,100 +1486,264 @@ public class FileBrowserPanel extends BorderPane {
             progressDialog.show();
         });
 
-        new Thread(() -> {
-            try {
-                String savedPath = null;
-
-                try {
-                    savedPath = ftpService.getCurrentDirectory();
-                } catch (Exception e) {
+        TransferQueue.Job job = transferQueue.enqueueDownload(finalRemotePath, targetFile, fileSize, finalResumeDownload,
+            TransferQueue.Priority.HIGH, new TransferQueue.JobListener() {
+                @Override
+                public void onProgress(TransferQueue.Job job, long bytesTransferred, long totalBytes, double speedBytesPerSecond) {
+                    double progress = totalBytes > 0 ? (double) bytesTransferred / totalBytes : 0.0;
+                    String speedStr = speedBytesPerSecond > 0
+                        ? formatBytes(speedBytesPerSecond) + "/s" + formatEta(bytesTransferred, totalBytes, speedBytesPerSecond)
+                        : "calculating...";
+                    progressDialog.updateProgress(progress, speedStr);
                 }
 
-                String downloadPath = finalRemotePath;
-
-                if (finalRemotePath.startsWith("/") && savedPath != null) {
-                    int lastSlash = finalRemotePath.lastIndexOf('/');
-                    if (lastSlash >= 0 && lastSlash < finalRemotePath.length() - 1) {
-                        String fileToDownload = finalRemotePath.substring(lastSlash + 1);
-                        String dirPath = finalRemotePath.substring(0, lastSlash);
-                        if (savedPath.equals(dirPath)) {
-                            downloadPath = fileToDownload;
-                        } else {
-                            if (ftpService.changeDirectory(dirPath)) {
-                                downloadPath = fileToDownload;
-                            }
+                @Override
+                public void onStateChanged(TransferQueue.Job job) {
+                    switch (job.getState()) {
+                        case COMPLETED -> progressDialog.setCompleted();
+                        case CANCELLED -> Platform.runLater(() -> {
+                            progressDialog.close();
+                            showAlert("Cancelled", "File download was cancelled. The partial file was kept and can be resumed.");
+                        });
+                        case FAILED -> Platform.runLater(() -> {
+                            progressDialog.close();
+                            showAlert("Error", job.getErrorMessage());
+                        });
+                        default -> {
                         }
                     }
                 }
+            });
+        cancelJob[0] = job;
+    }
 
-                FtpClientService.DownloadProgressCallback progressCallback = (bytesTransferred, totalBytes, speedBytesPerSecond) -> {
-                    if (cancelled[0]) {
-                        return false;
-                    }
+    private void handleUploadDirectory(FolderType folderType) {
 
-                    double progress = totalBytes > 0 ? (double) bytesTransferred / totalBytes : 0.0;
+        if (!checkUploadAllowed(folderType)) {
+            return;
+        }
 
-                    String speedStr;
-                    if (speedBytesPerSecond > 0) {
-                        speedStr = formatBytes(speedBytesPerSecond) + "/s";
-                    } else if (bytesTransferred > 0) {
-                        speedStr = "calculating...";
-                    } else {
-                        speedStr = "calculating...";
-                    }
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Select Folder to Upload");
+        Window window = sharedPathLabel.getScene().getWindow();
+        File selectedDir = directoryChooser.showDialog(window);
 
-                    progressDialog.updateProgress(progress, speedStr);
-                    return true;
-                };
+        if (selectedDir == null) {
+            return;
+        }
 
-                boolean success = ftpService.downloadFile(downloadPath, targetFile, progressCallback, fileSize);
+        startBatchUpload(folderType, List.of(selectedDir), selectedDir.getName() + "/");
+    }
 
-                if (cancelled[0]) {
-                    Platform.runLater(() -> {
-                        progressDialog.close();
-                        try {
-                            if (targetFile.exists()) {
-                                targetFile.delete();
-                            }
-                        } catch (Exception e) {
-                        }
-                        showAlert("Cancelled", "File download was cancelled");
-                    });
-                    return;
-                }
+    private long refreshBandwidthLimits() {
+        String username = currentUsername;
+        BandwidthLimiter limiter = ftpService.getBandwidthLimiter();
+        if (username != null) {
+            try {
+                Long userLimit = apiClient.getUserRateLimit(username);
+                limiter.setUserLimit(username, userLimit != null ? userLimit : 0);
+            } catch (Exception e) {
+            }
+        }
+        try {
+            Long globalLimit = apiClient.getGlobalUploadLimit();
+            limiter.setGlobalLimit(globalLimit != null ? globalLimit : 0);
+        } catch (Exception e) {
+        }
+        return limiter.getEffectiveLimit(username);
+    }
 
-                if (success) {
+    private boolean checkUploadAllowed(FolderType folderType) {
+        if (!ftpService.isConnected()) {
+            showAlert("Error", "Not connected to FTP server");
+            return false;
+        }
 
-                    progressDialog.setCompleted();
-                } else {
-                    Platform.runLater(() -> {
-                        progressDialog.close();
-                        String reason = ftpService.getLastErrorMessage();
-                        if (reason == null || reason.isBlank()) {
-                            reason = "Failed to download file: " + fileInfo.getName();
-                        }
-                        showAlert("Error", reason);
-                    });
+        if (folderType == FolderType.SHARED_BY_USER && !currentSharedFolderWrite) {
+            showAlert("Error", "You don't have write permission to upload files to this shared folder");
+            return false;
+        }
+
+        if (folderType == FolderType.GLOBAL && !currentGlobalFolderWrite) {
+            showAlert("Error", "You don't have write permission to upload files to Global directory");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean checkDownloadAllowed(FolderType folderType) {
+        if (!ftpService.isConnected()) {
+            showAlert("Error", "Not connected to FTP server");
+            return false;
+        }
+
+        if (folderType == FolderType.SHARED_BY_USER && !currentSharedFolderExecute) {
+            showAlert("Error", "You don't have execute permission to download files from this folder");
+            return false;
+        }
+
+        if (folderType == FolderType.GLOBAL && !currentGlobalFolderExecute) {
+            showAlert("Error", "You don't have execute permission to download files from Global directory");
+            return false;
+        }
+        return true;
+    }
+
+    private void startBatchUpload(FolderType folderType, List<File> sources, String title) {
+        final String currentPathForSection = currentPathFor(folderType);
+
+        UploadProgressDialog progressDialog = new UploadProgressDialog(title);
+        progressDialog.initOwner(sharedPathLabel.getScene().getWindow());
+
+        final boolean[] cancelled = {false};
+        final DirectoryTransferService.DirectoryTransfer[] transfer = {null};
+        progressDialog.setResultConverter(buttonType -> {
+            if (buttonType == ButtonType.CANCEL || buttonType.getButtonData() == ButtonBar.ButtonData.CANCEL_CLOSE) {
+                cancelled[0] = true;
+                if (transfer[0] != null && !transfer[0].isFinished()) {
+                    transfer[0].cancel();
                 }
+            }
+            return null;
+        });
 
-                if (savedPath != null) {
-                    try {
-                        ftpService.changeDirectory(savedPath);
-                    } catch (Exception e) {
-                    }
+        Platform.runLater(progressDialog::show);
+
+        new Thread(() -> {
+            refreshBandwidthLimits();
+
+            if (cancelled[0]) {
+                return;
+            }
+
+            final String refreshGlobalPath = folderType == FolderType.GLOBAL ? currentPathForSection : null;
+            final String refreshYourDirectoryPath = folderType == FolderType.YOUR_DIRECTORY ? currentPathForSection : null;
+            final String refreshSharedPath = folderType == FolderType.SHARED_BY_USER ? currentPathForSection : null;
+
+            transfer[0] = directoryTransferService.upload(sources, currentPathForSection, null,
+                batchTransferListener("Upload", "Uploaded", progressDialog, progressDialog::updateProgress, progressDialog::setCompleted,
+                    () -> refresh(refreshGlobalPath, refreshYourDirectoryPath, refreshSharedPath)));
+            if (cancelled[0]) {
+                transfer[0].cancel();
+            }
+        }).start();
+    }
+
+    private void handleDownloadDirectory(FolderType folderType, FtpFileInfo folderInfo) {
+        handleDownloadSelection(folderType, List.of(folderInfo));
+    }
+
+    private void handleDownloadSelection(FolderType folderType, List<FtpFileInfo> selection) {
+
+        if (!checkDownloadAllowed(folderType)) {
+            return;
+        }
+
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Download To");
+        Window window = sharedPathLabel.getScene().getWindow();
+        File targetDir = directoryChooser.showDialog(window);
+
+        if (targetDir == null) {
+            return;
+        }
+
+        String currentPathForSection = currentPathFor(folderType);
+        List<FtpFileInfo> entries = new ArrayList<>();
+        for (FtpFileInfo item : selection) {
+            String path = item.getFullPath() != null && !item.getFullPath().isEmpty()
+                ? item.getFullPath()
+                : NavigationService.joinPath(currentPathForSection, item.getName());
+            entries.add(new FtpFileInfo(item.getName(), item.isDirectory(), item.getSize(), item.getTimestamp(), folderType, path));
+        }
+
+        String title = entries.size() == 1
+            ? entries.get(0).getName() + (entries.get(0).isDirectory() ? "/" : "")
+            : entries.size() + " items";
+        DownloadProgressDialog progressDialog = new DownloadProgressDialog(title);
+        progressDialog.initOwner(window);
+
+        final DirectoryTransferService.DirectoryTransfer[] transfer = {null};
+        progressDialog.setResultConverter(buttonType -> {
+            if (buttonType == ButtonType.CANCEL || buttonType.getButtonData() == ButtonBar.ButtonData.CANCEL_CLOSE) {
+                if (transfer[0] != null && !transfer[0].isFinished()) {
+                    transfer[0].cancel();
                 }
+            }
+            return null;
+        });
 
-            } catch (Exception e) {
+        Platform.runLater(progressDialog::show);
+
+        transfer[0] = directoryTransferService.download(entries, targetDir,
+            batchTransferListener("Download", "Downloaded", progressDialog, progressDialog::updateProgress, progressDialog::setCompleted, null));
+    }
+
+    private DirectoryTransferService.Listener batchTransferListener(String action, String doneVerb, Dialog<?> progressDialog,
+                                                                    BiConsumer<Double, String> updateProgress, Runnable setCompleted,
+                                                                    Runnable afterFinish) {
+        return new DirectoryTransferService.Listener() {
+            @Override
+            public void onProgress(DirectoryTransferService.DirectoryTransfer t) {
+                updateProgress.accept(directoryProgress(t), directoryStatus(t));
+            }
+
+            @Override
+            public void onFinished(DirectoryTransferService.DirectoryTransfer t) {
                 Platform.runLater(() -> {
-                    String reason = ftpService.getLastErrorMessage();
-                    if (reason == null || reason.isBlank()) {
-                        reason = "Failed to download file: " + e.getMessage();
+                    if (t.isCancelled()) {
+                        progressDialog.close();
+                        showAlert("Cancelled", action + " was cancelled after " + t.getCompletedFiles() + " of " + t.getTotalFiles() + " files.");
+                    } else if (t.getFailedFiles() > 0 || !t.getErrorMessage().isEmpty()) {
+                        progressDialog.close();
+                        showAlert("Error", doneVerb + " " + t.getCompletedFiles() + " of " + t.getTotalFiles() + " files. " + t.getErrorMessage());
+                    } else {
+                        setCompleted.run();
+                    }
+                    if (afterFinish != null) {
+                        afterFinish.run();
                     }
-                    showAlert("Error", reason);
                 });
-            } finally {
             }
-        }).start();
+        };
+    }
+
+    private double directoryProgress(DirectoryTransferService.DirectoryTransfer transfer) {
+        if (transfer.isScanning() || transfer.getTotalBytes() <= 0) {
+            return transfer.getTotalFiles() > 0 && !transfer.isScanning()
+                ? Math.min(0.99, (double) transfer.getCompletedFiles() / transfer.getTotalFiles())
+                : ProgressBar.INDETERMINATE_PROGRESS;
+        }
+        return Math.min(0.99, (double) transfer.getTransferredBytes() / transfer.getTotalBytes());
+    }
+
+    private String directoryStatus(DirectoryTransferService.DirectoryTransfer transfer) {
+        String files = transfer.getCompletedFiles() + " of " + transfer.getTotalFiles() + " files";
+        if (transfer.isScanning()) {
+            files += " (scanning...)";
+        }
+        String eta = transfer.isScanning()
+            ? ""
+            : formatEta(transfer.getTransferredBytes(), transfer.getTotalBytes(), transfer.getSpeedBytesPerSecond());
+        return formatBytes(transfer.getSpeedBytesPerSecond()) + "/s \u2022 " + files
+            + " \u2022 " + formatBytes(transfer.getTransferredBytes()) + " of " + formatBytes(transfer.getTotalBytes()) + eta;
+    }
+
+    private String currentPathFor(FolderType folderType) {
+        switch (folderType) {
+            case GLOBAL:
+                return globalCurrentPath;
+            case YOUR_DIRECTORY:
+                String labelText = yourDirectoryPathLabel.getText();
+                if (labelText.startsWith("Your Directory path: ")) {
+                    return labelText.substring("Your Directory path: ".length());
+                }
+                return yourDirectoryCurrentPath;
+            case SHARED_BY_USER:
+                return sharedCurrentPath;
+            default:
+                return "/";
+        }
     }
 
     private void handleDelete(FolderType folderType, FtpFileInfo fileInfo) {
@@ -1504,9 +1797,13 @@ public class FileBrowserPanel extends BorderPane {
 
             final String finalCurrentPath = currentPathForSection;
             final String itemName = fileInfo.getName();
-            final boolean isDirectory = fileInfo.isDirectory();
             final FtpFileInfo finalFileInfo = fileInfo;
 
+            if (fileInfo.isDirectory()) {
+                runRecursiveDelete(folderType, List.of(fileInfo), finalCurrentPath, "Deleting: " + itemName + "/");
+                return;
+            }
+
 
             new Thread(() -> {
                 try {
@@ -1518,19 +1815,7 @@ public class FileBrowserPanel extends BorderPane {
                     }
 
 
-                    boolean deleteResult = isDirectory
-                            ? ftpService.deleteDirectory(deletePath)
-                            : ftpService.deleteFile(deletePath);
-
-                    if (deleteResult) {
-
-                        if (isDirectory && folderType == FolderType.YOUR_DIRECTORY) {
-                            try {
-                                apiClient.deleteSharedFolder(deletePath);
-                            } catch (Exception e) {
-                            }
-                        }
-
+                    if (ftpService.deleteFile(deletePath)) {
                         final String refreshGlobalPath = folderType == FolderType.GLOBAL ? finalCurrentPath : null;
                         final String refreshYourDirectoryPath = folderType == FolderType.YOUR_DIRECTORY ? finalCurrentPath : null;
                         final String refreshSharedPath = folderType == FolderType.SHARED_BY_USER ? finalCurrentPath : null;
@@ -1541,7 +1826,7 @@ public class FileBrowserPanel extends BorderPane {
                         Platform.runLater(() -> {
                             String reason = ftpService.getLastErrorMessage();
                             if (reason == null || reason.isBlank()) {
-                                reason = "Failed to delete " + (isDirectory ? "directory" : "file") + ": " + itemName;
+                                reason = "Failed to delete file: " + itemName;
                             }
                             showAlert("Error", reason);
                         });
@@ -1551,16 +1836,138 @@ public class FileBrowserPanel extends BorderPane {
                     Platform.runLater(() -> {
                         String reason = ftpService.getLastErrorMessage();
                         if (reason == null || reason.isBlank()) {
-                            reason = "Failed to delete " + (isDirectory ? "directory" : "file") + ": " + e.getMessage();
+                            reason = "Failed to delete file: " + e.getMessage();
                         }
                         showAlert("Error", reason);
                     });
-                } finally {
                 }
             }).start();
         });
     }
 
+    private void handleDeleteSelection(FolderType folderType, List<FtpFileInfo> selection) {
+
+        if (!ftpService.isConnected()) {
+            showAlert("Error", "Not connected to FTP server");
+            return;
+        }
+
+        if (folderType == FolderType.SHARED_BY_USER && !currentSharedFolderExecute) {
+            showAlert("Error", "You don't have execute permission to delete files from this folder");
+            return;
+        }
+
+        if (folderType == FolderType.GLOBAL && !currentGlobalFolderExecute) {
+            showAlert("Error", "You don't have execute permission to delete files from Global directory");
+            return;
+        }
+
+        Alert confirmDialog = new Alert(Alert.AlertType.CONFIRMATION);
+        confirmDialog.setTitle("");
+        confirmDialog.setHeaderText(null);
+        confirmDialog.setContentText("Are you sure you want to delete " + selection.size() + " selected items?\n\nThis action cannot be undone.");
+        confirmDialog.getDialogPane().setHeader(null);
+
+        Window ownerWindow = sharedPathLabel.getScene().getWindow();
+        DialogStyler.applyStyles(confirmDialog, ownerWindow);
+
+        confirmDialog.showAndWait().ifPresent(result -> {
+            if (result != ButtonType.OK) {
+                return;
+            }
+
+            runRecursiveDelete(folderType, selection, currentPathFor(folderType), "Deleting " + selection.size() + " items");
+        });
+    }
+
+    private void runRecursiveDelete(FolderType folderType, List<FtpFileInfo> selection, String currentPathForSection, String title) {
+        List<FtpFileInfo> entries = new ArrayList<>();
+        for (FtpFileInfo item : selection) {
+            String path = item.getFullPath() != null && !item.getFullPath().isEmpty()
+                ? item.getFullPath()
+                : NavigationService.joinPath(currentPathForSection, item.getName());
+            entries.add(new FtpFileInfo(item.getName(), item.isDirectory(), item.getSize(), item.getTimestamp(), folderType, path));
+        }
+
+        RecursiveDeleteService deleteService = new RecursiveDeleteService(ftpService);
+
+        OperationProgressDialog progressDialog = new OperationProgressDialog(title);
+        progressDialog.initOwner(sharedPathLabel.getScene().getWindow());
+        progressDialog.setResultConverter(buttonType -> {
+            if (buttonType == ButtonType.CANCEL || buttonType.getButtonData() == ButtonBar.ButtonData.CANCEL_CLOSE) {
+                deleteService.cancel();
+            }
+            return null;
+        });
+
+        progressDialog.show();
+
+        new Thread(() -> {
+            Set<String> affectedSharedPaths = folderType == FolderType.YOUR_DIRECTORY
+                ? sharedPathsUnder(entries)
+                : Collections.emptySet();
+
+            RecursiveDeleteService.Result result = deleteService.delete(entries, new RecursiveDeleteService.Listener() {
+                @Override
+                public void onProgress(RecursiveDeleteService.Result r) {
+                    int total = Math.max(1, r.getTotal());
+                    progressDialog.updateProgress(Math.min(0.99, (double) r.getProcessed() / total),
+                        r.getProcessed() + " of " + r.getTotal() + " items");
+                }
+
+                @Override
+                public void onDirectoryRemoved(String path) {
+                    if (affectedSharedPaths.contains(normalizePath(path))) {
+                        try {
+                            apiClient.deleteSharedFolder(path);
+                        } catch (Exception e) {
+                        }
+                    }
+                }
+            });
+
+            final String refreshGlobalPath = folderType == FolderType.GLOBAL ? currentPathForSection : null;
+            final String refreshYourDirectoryPath = folderType == FolderType.YOUR_DIRECTORY ? currentPathForSection : null;
+            final String refreshSharedPath = folderType == FolderType.SHARED_BY_USER ? currentPathForSection : null;
+            Platform.runLater(() -> {
+                progressDialog.close();
+                if (result.isCancelled() && result.getFailed() == 0) {
+                    showAlert("Cancelled", "Delete was cancelled after " + result.getProcessed() + " of " + result.getTotal() + " items.");
+                } else if (!result.isSuccessful()) {
+                    showAlert("Error", "Deleted " + (result.getDeletedFiles() + result.getRemovedDirectories()) + " of "
+                        + result.getTotal() + " items.\n\n" + result.getErrorMessage());
+                }
+                refresh(refreshGlobalPath, refreshYourDirectoryPath, refreshSharedPath);
+            });
+        }).start();
+    }
+
+    private Set<String> sharedPathsUnder(List<FtpFileInfo> roots) {
+        Set<String> affected = new HashSet<>();
+        try {
+            List<FolderPermissionsApiClient.SharedFolder> sharedFoldersList = apiClient.getSharedFolders(currentUsername);
+            for (FolderPermissionsApiClient.SharedFolder sharedFolder : sharedFoldersList) {
+                String normalizedFolderPath = normalizePath(sharedFolder.getFolderPath());
+                if (normalizedFolderPath == null) {
+                    continue;
+                }
+                for (FtpFileInfo root : roots) {
+                    if (!root.isDirectory()) {
+                        continue;
+                    }
+                    String normalizedRoot = normalizePath(root.getFullPath());
+                    String rootPrefix = normalizedRoot.endsWith("/") ? normalizedRoot : normalizedRoot + "/";
+                    if (normalizedFolderPath.equals(normalizedRoot) || normalizedFolderPath.startsWith(rootPrefix)) {
+                        affected.add(normalizedFolderPath);
+                        break;
+                    }
+                }
+            }
+        } catch (Exception e) {
+        }
+        return affected;
+    }
+
     private void handleShare() {
         if (selectedFolder == null) {
             return;
@@ -1611,6 +2018,63 @@ public class FileBrowserPanel extends BorderPane {
         });
     }
 
+    private Boolean askResumeDownload(String fileName, long completedBytes, long totalBytes) {
+        ButtonType resumeButton = new ButtonType("Resume", ButtonBar.ButtonData.YES);
+        ButtonType overwriteButton = new ButtonType("Overwrite", ButtonBar.ButtonData.NO);
+
+        Alert resumeDialog = new Alert(Alert.AlertType.CONFIRMATION, "", resumeButton, overwriteButton, ButtonType.CANCEL);
+        resumeDialog.setTitle("");
+        resumeDialog.setHeaderText(null);
+        resumeDialog.setContentText("A partial download of " + fileName + " was found ("
+            + formatBytes(completedBytes) + " of " + formatBytes(totalBytes) + ").\n\nResume it or start over?");
+        resumeDialog.getDialogPane().setHeader(null);
+
+        Window ownerWindow = sharedPathLabel.getScene().getWindow();
+        DialogStyler.applyStyles(resumeDialog, ownerWindow);
+
+        ButtonType result = resumeDialog.showAndWait().orElse(ButtonType.CANCEL);
+        if (result == resumeButton) {
+            return true;
+        }
+        if (result == overwriteButton) {
+            return false;
+        }
+        return null;
+    }
+
+    private Boolean askResumeUpload(String fileName, long remoteBytes, long totalBytes) {
+        ButtonType resumeButton = new ButtonType("Resume", ButtonBar.ButtonData.YES);
+        ButtonType overwriteButton = new ButtonType("Overwrite", ButtonBar.ButtonData.NO);
+
+        Alert resumeDialog = new Alert(Alert.AlertType.CONFIRMATION, "", resumeButton, overwriteButton, ButtonType.CANCEL);
+        resumeDialog.setTitle("");
+        resumeDialog.setHeaderText(null);
+        resumeDialog.setContentText("The server already has part of " + fileName + " ("
+            + formatBytes(remoteBytes) + " of " + formatBytes(totalBytes) + ").\n\nResume the upload or start over?");
+        resumeDialog.getDialogPane().setHeader(null);
+
+        Window ownerWindow = sharedPathLabel.getScene().getWindow();
+        DialogStyler.applyStyles(resumeDialog, ownerWindow);
+
+        ButtonType result = resumeDialog.showAndWait().orElse(ButtonType.CANCEL);
+        if (result == resumeButton) {
+            return true;
+        }
+        if (result == overwriteButton) {
+            return false;
+        }
+        return null;
+    }
+
+    private <T> T callOnFxThread(Callable<T> action) throws Exception {
+        if (Platform.isFxApplicationThread()) {
+            return action.call();
+        }
+        FutureTask<T> task = new FutureTask<>(action);
+        Platform.runLater(task);
+        return task.get();
+    }
+
     private void showAlert(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle("");
@@ -1624,6 +2088,17 @@ public class FileBrowserPanel extends BorderPane {
         alert.showAndWait();
     }
 
+    private String formatEta(long bytesTransferred, long totalBytes, double speedBytesPerSecond) {
+        long seconds = TransferMeter.etaSeconds(bytesTransferred, totalBytes, speedBytesPerSecond);
+        if (seconds < 0) {
+            return "";
+        }
+        if (seconds >= 3600) {
+            return String.format(" \u2022 %d:%02d:%02d left", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+        }
+        return String.format(" \u2022 %d:%02d left", seconds / 60, seconds % 60);
+    }
+
     private String formatBytes(double bytes) {
         if (bytes < 1024) {
             return String.format("%.0f B", bytes);
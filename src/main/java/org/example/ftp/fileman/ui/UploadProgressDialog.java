@@ -8,13 +8,16 @@ import javafx.scene.control.Dialog;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.VBox;
+import org.example.ftp.fileman.ui.util.ProgressPublisher;
 
-public class UploadProgressDialog extends Dialog<Void> {
+public class UploadProgressDialog extends Dialog<Void> implements ProgressPublisher.View {
 
     private ProgressBar progressBar;
     private Label percentLabel;
     private Label speedLabel;
     private boolean isCompleted = false;
+    private volatile double pendingProgress = 0;
+    private volatile String pendingSpeed;
 
     public UploadProgressDialog(String fileName) {
         setTitle("");
@@ -93,30 +96,40 @@ public class UploadProgressDialog extends Dialog<Void> {
     }
 
     public void updateProgress(double progress, String speed) {
-        Platform.runLater(() -> {
-            progressBar.setProgress(progress);
-            percentLabel.setText(String.format("%.1f%%", progress * 100));
+        if (pendingProgress >= 1.0) {
+            return;
+        }
+        pendingProgress = progress;
+        pendingSpeed = speed;
+        ProgressPublisher.markDirty(this);
+    }
 
-            if (speed != null && !speed.isEmpty()) {
-                speedLabel.setText("Speed: " + speed);
-            }
+    @Override
+    public void publish() {
+        double progress = pendingProgress;
+        String speed = pendingSpeed;
+        progressBar.setProgress(progress);
+        percentLabel.setText(String.format("%.1f%%", progress * 100));
 
+        if (speed != null && !speed.isEmpty()) {
+            speedLabel.setText("Speed: " + speed);
+        }
 
-            if (progress >= 1.0 && !isCompleted) {
-                isCompleted = true;
 
-                new Thread(() -> {
-                    try {
-                        Thread.sleep(300);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-                    Platform.runLater(() -> {
-                        close();
-                    });
-                }).start();
-            }
-        });
+        if (progress >= 1.0 && !isCompleted) {
+            isCompleted = true;
+
+            new Thread(() -> {
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                Platform.runLater(() -> {
+                    close();
+                });
+            }).start();
+        }
     }
 
     public void setCompleted() {
@@ -121,88 +121,33 @@ public class FileBrowserController {
     }
     
     private List<FtpFileInfo> loadGlobalFiles(String path) throws IOException {
-        String savedPath = null;
-        try {
-            savedPath = connectionService.getCurrentDirectory();
-        } catch (Exception e) {
-        }
-        
-        try {
-            if (directoryService.changeDirectory(path)) {
-                List<FtpFileInfo> files = directoryService.listFiles("");
-                for (FtpFileInfo file : files) {
-                    file.setFolderType(FolderType.GLOBAL);
-                    file.setFullPath(NavigationService.joinPath(path, file.getName()));
-                }
-                return files;
-            }
-        } finally {
-            if (savedPath != null) {
-                try {
-                    directoryService.changeDirectory(savedPath);
-                } catch (Exception e) {
-                }
-            }
+        List<FtpFileInfo> files = directoryService.listFiles(path);
+        for (FtpFileInfo file : files) {
+            file.setFolderType(FolderType.GLOBAL);
+            file.setFullPath(NavigationService.joinPath(path, file.getName()));
         }
-        return new ArrayList<>();
+        return files;
     }
     
     private List<FtpFileInfo> loadYourDirectoryFiles(String path) throws IOException {
-        String savedPath = null;
-        try {
-            savedPath = connectionService.getCurrentDirectory();
-        } catch (Exception e) {
+        List<FtpFileInfo> files = directoryService.listFiles(path);
+        for (FtpFileInfo file : files) {
+            file.setFolderType(FolderType.YOUR_DIRECTORY);
+            file.setFullPath(NavigationService.joinPath(path, file.getName()));
         }
-        
-        try {
-            if (directoryService.changeDirectory(path)) {
-                List<FtpFileInfo> files = directoryService.listFiles("");
-                for (FtpFileInfo file : files) {
-                    file.setFolderType(FolderType.YOUR_DIRECTORY);
-                    file.setFullPath(NavigationService.joinPath(path, file.getName()));
-                }
-                return files;
-            }
-        } finally {
-            if (savedPath != null) {
-                try {
-                    directoryService.changeDirectory(savedPath);
-                } catch (Exception e) {
-                }
-            }
-        }
-        return new ArrayList<>();
+        return files;
     }
     
     private List<FtpFileInfo> loadSharedFiles(String path) throws IOException {
         if (path.equals("/")) {
             return loadSharedFoldersList();
-        } else {
-            String savedPath = null;
-            try {
-                savedPath = connectionService.getCurrentDirectory();
-            } catch (Exception e) {
-            }
-            
-            try {
-                if (directoryService.changeDirectory(path)) {
-                    List<FtpFileInfo> files = directoryService.listFiles("");
-                    for (FtpFileInfo file : files) {
-                        file.setFolderType(FolderType.SHARED_BY_USER);
-                        file.setFullPath(NavigationService.joinPath(path, file.getName()));
-                    }
-                    return files;
-                }
-            } finally {
-                if (savedPath != null) {
-                    try {
-                        directoryService.changeDirectory(savedPath);
-                    } catch (Exception e) {
-                    }
-                }
-            }
         }
-        return new ArrayList<>();
+        List<FtpFileInfo> files = directoryService.listFiles(path);
+        for (FtpFileInfo file : files) {
+            file.setFolderType(FolderType.SHARED_BY_USER);
+            file.setFullPath(NavigationService.joinPath(path, file.getName()));
+        }
+        return files;
     }
     
     private List<FtpFileInfo> loadSharedFoldersList() {
@@ -325,24 +270,7 @@ public class FileBrowserController {
         FileTableViewModel viewModel = getViewModel(folderType);
         String currentPath = viewModel.getCurrentPath();
         
-        String savedPath = null;
-        try {
-            savedPath = connectionService.getCurrentDirectory();
-        } catch (Exception e) {
-        }
-        
-        try {
-            if (directoryService.changeDirectory(currentPath)) {
-                directoryService.createDirectory(directoryName);
-            }
-        } finally {
-            if (savedPath != null) {
-                try {
-                    directoryService.changeDirectory(savedPath);
-                } catch (Exception e) {
-                }
-            }
-        }
+        directoryService.createDirectory(NavigationService.joinPath(currentPath, directoryName));
         
         refreshSection(folderType);
     }
@@ -354,24 +282,7 @@ public class FileBrowserController {
         String currentPath = viewModel.getCurrentPath();
         String fileName = localFile.getName();
         
-        String savedPath = null;
-        try {
-            savedPath = connectionService.getCurrentDirectory();
-        } catch (Exception e) {
-        }
-        
-        try {
-            if (directoryService.changeDirectory(currentPath)) {
-                fileService.uploadFile(fileName, localFile, progressCallback);
-            }
-        } finally {
-            if (savedPath != null) {
-                try {
-                    directoryService.changeDirectory(savedPath);
-                } catch (Exception e) {
-                }
-            }
-        }
+        fileService.uploadFile(NavigationService.joinPath(currentPath, fileName), localFile, progressCallback);
         
         refreshSection(folderType);
     }
@@ -386,22 +297,7 @@ public class FileBrowserController {
             remotePath = NavigationService.joinPath(viewModel.getCurrentPath(), file.getName());
         }
         
-        String savedPath = null;
-        try {
-            savedPath = connectionService.getCurrentDirectory();
-        } catch (Exception e) {
-        }
-        
-        try {
-            fileService.downloadFile(remotePath, targetFile, progressCallback, file.getSize());
-        } finally {
-            if (savedPath != null) {
-                try {
-                    directoryService.changeDirectory(savedPath);
-                } catch (Exception e) {
-                }
-            }
-        }
+        fileService.downloadFile(remotePath, targetFile, progressCallback, file.getSize());
     }
     
  
@@ -414,25 +310,10 @@ public class FileBrowserController {
             path = NavigationService.joinPath(viewModel.getCurrentPath(), file.getName());
         }
         
-        String savedPath = null;
-        try {
-            savedPath = connectionService.getCurrentDirectory();
-        } catch (Exception e) {
-        }
-        
-        try {
-            if (file.isDirectory()) {
-                directoryService.deleteDirectory(path);
-            } else {
-                fileService.deleteFile(path);
-            }
-        } finally {
-            if (savedPath != null) {
-                try {
-                    directoryService.changeDirectory(savedPath);
-                } catch (Exception e) {
-                }
-            }
+        if (file.isDirectory()) {
+            directoryService.deleteDirectory(path);
+        } else {
+            fileService.deleteFile(path);
         }
         
         refreshSection(folderType);
@@ -0,0 +1,65 @@
+package org.example.ftp.fileman.ui.util;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+public class ProgressPublisher {
+
+    public interface View {
+        void publish();
+    }
+
+    private static final long PUBLISH_INTERVAL_NANOS = 100_000_000L;
+
+    private static final Set<View> dirtyViews = ConcurrentHashMap.newKeySet();
+    private static final AtomicBoolean running = new AtomicBoolean(false);
+
+    private static final AnimationTimer timer = new AnimationTimer() {
+        private long lastPublish = 0;
+
+        @Override
+        public void handle(long now) {
+            if (now - lastPublish < PUBLISH_INTERVAL_NANOS) {
+                return;
+            }
+            lastPublish = now;
+
+            if (dirtyViews.isEmpty()) {
+                stop();
+                running.set(false);
+                if (!dirtyViews.isEmpty() && running.compareAndSet(false, true)) {
+                    start();
+                }
+                return;
+            }
+
+            Iterator<View> it = dirtyViews.iterator();
+            while (it.hasNext()) {
+                View view = it.next();
+                it.remove();
+                try {
+                    view.publish();
+                } catch (Exception e) {
+                }
+            }
+        }
+    };
+
+
+    public static void markDirty(View view) {
+        dirtyViews.add(view);
+        if (running.compareAndSet(false, true)) {
+            if (Platform.isFxApplicationThread()) {
+                timer.start();
+            } else {
+                Platform.runLater(timer::start);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.ftp.fileman.ftp;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BandwidthLimiterTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    void effectiveLimitIsTightestNonZeroRate() {
+        BandwidthLimiter limiter = new BandwidthLimiter();
+        limiter.setGlobalLimit(8 * MB);
+        limiter.setUserLimit("alice", 2 * MB);
+
+        assertEquals(2 * MB, limiter.getEffectiveLimit("alice"));
+        assertEquals(8 * MB, limiter.getEffectiveLimit("bob"));
+        assertEquals(MB, limiter.open("alice", MB, 1).getEffectiveLimit());
+        assertEquals(2 * MB, limiter.open("alice", 0, 1).getEffectiveLimit());
+        assertEquals(8 * MB, limiter.open(null, 0, 1).getEffectiveLimit());
+    }
+
+    @Test
+    void zeroOrNegativeRatesMeanUnlimited() {
+        BandwidthLimiter limiter = new BandwidthLimiter();
+        limiter.setGlobalLimit(-5);
+        limiter.setUserLimit("alice", 0);
+
+        BandwidthLimiter.Throttle throttle = limiter.open("alice", 0, 1);
+
+        assertFalse(throttle.isLimited());
+        assertEquals(0, limiter.getGlobalLimit());
+        long started = System.nanoTime();
+        throttle.acquire(1024 * MB);
+        assertTrue(System.nanoTime() - started < 100_000_000L);
+    }
+
+    @Test
+    void transferLimitPacesBytes() {
+        BandwidthLimiter.Throttle throttle = new BandwidthLimiter().open(null, 4 * MB, 1);
+
+        double seconds = timeAcquire(throttle, 2 * MB);
+
+        // 2 MB at 4 MB/s is 0.5 s, less the 50 ms burst allowance.
+        assertTrue(seconds >= 0.4, "finished too early: " + seconds);
+        assertTrue(seconds < 1.5, "finished too late: " + seconds);
+    }
+
+    @Test
+    void userLimitIsSharedAcrossTransfers() throws InterruptedException {
+        BandwidthLimiter limiter = new BandwidthLimiter();
+        limiter.setUserLimit("alice", 4 * MB);
+        BandwidthLimiter.Throttle first = limiter.open("alice", 0, 1);
+        BandwidthLimiter.Throttle second = limiter.open("alice", 0, 1);
+
+        long started = System.nanoTime();
+        Thread other = new Thread(() -> second.acquire(MB));
+        other.start();
+        first.acquire(MB);
+        other.join();
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        assertTrue(seconds >= 0.4, "user limit not shared: " + seconds);
+        assertTrue(seconds < 1.5, "finished too late: " + seconds);
+    }
+
+    @Test
+    void rateChangesApplyToOpenThrottles() {
+        BandwidthLimiter limiter = new BandwidthLimiter();
+        limiter.setGlobalLimit(MB);
+        BandwidthLimiter.Throttle throttle = limiter.open(null, 0, 1);
+
+        limiter.setGlobalLimit(0);
+
+        assertFalse(throttle.isLimited());
+        assertTrue(timeAcquire(throttle, 64 * MB) < 0.1);
+    }
+
+    @Test
+    void interruptStopsWaiting() {
+        BandwidthLimiter.Throttle throttle = new BandwidthLimiter().open(null, 1024, 1);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertTrue(timeAcquire(throttle, 10 * MB) < 0.5);
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    private static double timeAcquire(BandwidthLimiter.Throttle throttle, long bytes) {
+        long started = System.nanoTime();
+        throttle.acquire(bytes);
+        return (System.nanoTime() - started) / 1e9;
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.ftp.fileman.ftp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DownloadJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void splitsIntoContiguousSegments() {
+        DownloadJournal journal = DownloadJournal.create(dir.resolve("a.bin").toFile(), "/a.bin", 10, null, 3);
+
+        assertEquals(3, journal.getSegmentCount());
+        assertEquals(0, journal.getSegmentDone(0));
+        assertEquals(4, journal.getSegmentEnd(0));
+        assertEquals(4, journal.getSegmentDone(1));
+        assertEquals(8, journal.getSegmentEnd(1));
+        assertEquals(8, journal.getSegmentDone(2));
+        assertEquals(10, journal.getSegmentEnd(2));
+        assertEquals(0, journal.getCompletedBytes());
+    }
+
+    @Test
+    void unknownSizeUsesSingleOpenEndedSegment() {
+        DownloadJournal journal = DownloadJournal.create(dir.resolve("a.bin").toFile(), "/a.bin", -1, null, 4);
+
+        assertEquals(1, journal.getSegmentCount());
+        assertEquals(-1, journal.getSegmentEnd(0));
+    }
+
+    @Test
+    void resumesFromSavedCheckpoints() throws IOException {
+        File target = dir.resolve("a.bin").toFile();
+        DownloadJournal journal = DownloadJournal.create(target, "/a.bin", 100, "20240301120000", 2);
+        Files.write(journal.getPartFile().toPath(), new byte[100]);
+        journal.save();
+        journal.checkpoint(0, 30);
+        journal.checkpoint(1, 70);
+        journal.checkpoint(1, 60);
+
+        DownloadJournal loaded = DownloadJournal.load(target);
+
+        assertNotNull(loaded);
+        assertTrue(loaded.matches("/a.bin", 100, "20240301120000"));
+        assertEquals(30, loaded.getSegmentDone(0));
+        assertEquals(70, loaded.getSegmentDone(1));
+        assertEquals(50, loaded.getCompletedBytes());
+    }
+
+    @Test
+    void doesNotMatchChangedRemoteFile() {
+        DownloadJournal journal = DownloadJournal.create(dir.resolve("a.bin").toFile(), "/a.bin", 100, "20240301120000", 1);
+
+        assertFalse(journal.matches("/a.bin", 101, "20240301120000"));
+        assertFalse(journal.matches("/a.bin", 100, "20240302120000"));
+        assertFalse(journal.matches("/b.bin", 100, "20240301120000"));
+    }
+
+    @Test
+    void loadIgnoresMissingPartOrCorruptJournal() throws IOException {
+        File target = dir.resolve("a.bin").toFile();
+        DownloadJournal.create(target, "/a.bin", 100, null, 1).save();
+
+        assertNull(DownloadJournal.load(target));
+
+        Files.write(DownloadJournal.partFileFor(target).toPath(), new byte[10]);
+        Files.writeString(DownloadJournal.journalFileFor(target).toPath(), "remotePath=/a.bin\nsegments=2\nsegment.0=0,5\n",
+            StandardCharsets.UTF_8);
+
+        assertNull(DownloadJournal.load(target));
+    }
+
+    @Test
+    void saveLeavesNoTemporaryFile() throws IOException {
+        File target = dir.resolve("a.bin").toFile();
+        DownloadJournal.create(target, "/a.bin", 100, null, 1).save();
+
+        assertTrue(DownloadJournal.journalFileFor(target).isFile());
+        assertFalse(new File(DownloadJournal.journalFileFor(target).getPath() + ".tmp").exists());
+    }
+
+    @Test
+    void commitMovesPartOverTargetAndDropsJournal() throws IOException {
+        File target = dir.resolve("a.bin").toFile();
+        Files.writeString(target.toPath(), "old contents", StandardCharsets.UTF_8);
+        DownloadJournal journal = DownloadJournal.create(target, "/a.bin", 3, null, 1);
+        Files.write(journal.getPartFile().toPath(), new byte[] {1, 2, 3});
+        journal.save();
+
+        journal.commit();
+
+        assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(target.toPath()));
+        assertFalse(journal.getPartFile().exists());
+        assertFalse(DownloadJournal.journalFileFor(target).exists());
+    }
+
+    @Test
+    void discardRemovesPartAndJournal() throws IOException {
+        File target = dir.resolve("a.bin").toFile();
+        DownloadJournal journal = DownloadJournal.create(target, "/a.bin", 3, null, 1);
+        Files.write(journal.getPartFile().toPath(), new byte[] {1});
+        journal.save();
+
+        DownloadJournal.discard(target);
+
+        assertFalse(journal.getPartFile().exists());
+        assertFalse(DownloadJournal.journalFileFor(target).exists());
+    }
+}
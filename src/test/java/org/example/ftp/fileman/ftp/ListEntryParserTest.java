@@ -0,0 +1,141 @@
+package org.example.ftp.fileman.ftp;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ListEntryParserTest {
+
+    @Test
+    void parsesUnixFileWithYear() {
+        FtpFileInfo info = ListEntryParser.parse("-rw-r--r--   1 owner group  1048576 Mar  5  2021 report.pdf");
+
+        assertNotNull(info);
+        assertEquals("report.pdf", info.getName());
+        assertFalse(info.isDirectory());
+        assertEquals(1048576, info.getSize());
+        assertEquals(2021, info.getTimestamp().get(Calendar.YEAR));
+        assertEquals(Calendar.MARCH, info.getTimestamp().get(Calendar.MONTH));
+        assertEquals(5, info.getTimestamp().get(Calendar.DAY_OF_MONTH));
+    }
+
+    @Test
+    void parsesUnixDirectoryWithTime() {
+        FtpFileInfo info = ListEntryParser.parse("drwxr-xr-x   2 owner group     4096 Jan 12 09:41 photos");
+
+        assertNotNull(info);
+        assertEquals("photos", info.getName());
+        assertTrue(info.isDirectory());
+        assertEquals(9, info.getTimestamp().get(Calendar.HOUR_OF_DAY));
+        assertEquals(41, info.getTimestamp().get(Calendar.MINUTE));
+    }
+
+    @Test
+    void keepsSpacesInUnixNamesAndDropsSymlinkTarget() {
+        FtpFileInfo file = ListEntryParser.parse("-rw-r--r-- 1 owner group 12 Dec 31 2020 my  notes.txt");
+        FtpFileInfo link = ListEntryParser.parse("lrwxrwxrwx 1 owner group 7 Dec 31 2020 current -> v1.2.3");
+
+        assertEquals("my  notes.txt", file.getName());
+        assertEquals("current", link.getName());
+    }
+
+    @Test
+    void parsesUnixWithoutGroupColumn() {
+        FtpFileInfo info = ListEntryParser.parse("-rw-r--r-- 1 owner 512 Jul 4 2019 a.txt");
+
+        assertNotNull(info);
+        assertEquals("a.txt", info.getName());
+        assertEquals(512, info.getSize());
+    }
+
+    @Test
+    void parsesDosEntries() {
+        FtpFileInfo file = ListEntryParser.parse("04-27-21  03:15PM              2048 setup.exe");
+        FtpFileInfo dir = ListEntryParser.parse("11-02-2020  12:05AM       <DIR>          Program Files");
+
+        assertEquals("setup.exe", file.getName());
+        assertFalse(file.isDirectory());
+        assertEquals(2048, file.getSize());
+        assertEquals(2021, file.getTimestamp().get(Calendar.YEAR));
+        assertEquals(15, file.getTimestamp().get(Calendar.HOUR_OF_DAY));
+
+        assertEquals("Program Files", dir.getName());
+        assertTrue(dir.isDirectory());
+        assertEquals(2020, dir.getTimestamp().get(Calendar.YEAR));
+        assertEquals(0, dir.getTimestamp().get(Calendar.HOUR_OF_DAY));
+    }
+
+    @Test
+    void parsesEplfEntries() {
+        FtpFileInfo file = ListEntryParser.parse("+i8388621.48594,m825718503,r,s280,\tdjb.html");
+        FtpFileInfo dir = ListEntryParser.parse("+i8388621.50690,m824255907,/,\t514");
+
+        assertEquals("djb.html", file.getName());
+        assertFalse(file.isDirectory());
+        assertEquals(280, file.getSize());
+        assertEquals(825718503_000L, file.getTimestamp().getTimeInMillis());
+
+        assertEquals("514", dir.getName());
+        assertTrue(dir.isDirectory());
+    }
+
+    @Test
+    void skipsDotEntriesAndNoise() {
+        assertNull(ListEntryParser.parse("drwxr-xr-x 2 owner group 4096 Jan 12 09:41 ."));
+        assertNull(ListEntryParser.parse("drwxr-xr-x 2 owner group 4096 Jan 12 09:41 .."));
+        assertNull(ListEntryParser.parse("total 24"));
+        assertNull(ListEntryParser.parse(""));
+    }
+
+    @Test
+    void readsLinesSplitAcrossBuffers() throws IOException {
+        String longName = "x".repeat(600);
+        String listing = "-rw-r--r-- 1 owner group 10 Jan 1 2020 first.txt\r\n"
+            + "-rw-r--r-- 1 owner group 20 Jan 1 2020 " + longName + "\r\n"
+            + "drwxr-xr-x 2 owner group 4096 Jan 1 2020 café\r\n"
+            + "-rw-r--r-- 1 owner group 30 Jan 1 2020 last.txt";
+        List<FtpFileInfo> entries = new ArrayList<>();
+
+        int count = ListEntryParser.read(new TrickleInputStream(listing.getBytes(StandardCharsets.UTF_8), 3),
+            ListEntryParser::parse, entries::add);
+
+        assertEquals(4, count);
+        assertEquals("first.txt", entries.get(0).getName());
+        assertEquals(longName, entries.get(1).getName());
+        assertEquals(20, entries.get(1).getSize());
+        assertEquals("café", entries.get(2).getName());
+        assertEquals("last.txt", entries.get(3).getName());
+    }
+
+    private static class TrickleInputStream extends InputStream {
+        private final ByteArrayInputStream in;
+        private final int chunk;
+
+        TrickleInputStream(byte[] data, int chunk) {
+            this.in = new ByteArrayInputStream(data);
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return in.read(b, off, Math.min(len, chunk));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.ftp.fileman.ftp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ListingCacheTest {
+
+    @Test
+    void returnsCopiesOfCachedListing() {
+        ListingCache cache = new ListingCache();
+        List<FtpFileInfo> files = List.of(file("a.txt"), file("b.txt"));
+
+        cache.put("/docs/", files, cache.getVersion());
+        List<FtpFileInfo> cached = cache.get("/docs");
+
+        assertNotNull(cached);
+        assertEquals(2, cached.size());
+        assertEquals("a.txt", cached.get(0).getName());
+        assertNotSame(files.get(0), cached.get(0));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void normalizesPaths() {
+        assertEquals("/", ListingCache.normalize(null));
+        assertEquals("/", ListingCache.normalize(""));
+        assertEquals("/a/c", ListingCache.normalize("a/./b/../c/"));
+        assertEquals("/a/b", ListingCache.normalize("\\a\\b"));
+        assertEquals("/", ListingCache.normalize("/../.."));
+    }
+
+    @Test
+    void expiresEntriesAfterTtl() throws InterruptedException {
+        ListingCache cache = new ListingCache(50, 10);
+        cache.put("/docs", List.of(file("a.txt")), cache.getVersion());
+
+        assertNotNull(cache.get("/docs"));
+        Thread.sleep(80);
+
+        assertNull(cache.get("/docs"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void zeroTtlOrCapacityDisablesCaching() {
+        ListingCache noTtl = new ListingCache(0, 10);
+        ListingCache noCapacity = new ListingCache(1000, 0);
+
+        noTtl.put("/docs", List.of(file("a.txt")), noTtl.getVersion());
+        noCapacity.put("/docs", List.of(file("a.txt")), noCapacity.getVersion());
+
+        assertNull(noTtl.get("/docs"));
+        assertNull(noCapacity.get("/docs"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedDirectory() {
+        ListingCache cache = new ListingCache(60_000, 2);
+        cache.put("/a", List.of(), cache.getVersion());
+        cache.put("/b", List.of(), cache.getVersion());
+        cache.get("/a");
+
+        cache.put("/c", List.of(), cache.getVersion());
+
+        assertNotNull(cache.get("/a"));
+        assertNull(cache.get("/b"));
+        assertNotNull(cache.get("/c"));
+    }
+
+    @Test
+    void shrinkingCapacityTrimsEntries() {
+        ListingCache cache = new ListingCache(60_000, 3);
+        cache.put("/a", List.of(), cache.getVersion());
+        cache.put("/b", List.of(), cache.getVersion());
+        cache.put("/c", List.of(), cache.getVersion());
+
+        cache.setMaxDirectories(1);
+
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("/c"));
+    }
+
+    @Test
+    void dropsListingStartedBeforeMutation() {
+        ListingCache cache = new ListingCache();
+        long listedAt = cache.getVersion();
+
+        cache.invalidateParent("/docs/new.txt");
+        cache.put("/docs", List.of(file("old.txt")), listedAt);
+
+        assertNull(cache.get("/docs"));
+    }
+
+    @Test
+    void invalidateParentRemovesContainingDirectory() {
+        ListingCache cache = new ListingCache();
+        cache.put("/docs", List.of(), cache.getVersion());
+        cache.put("/docs/sub", List.of(), cache.getVersion());
+
+        cache.invalidateParent("/docs/new.txt");
+
+        assertNull(cache.get("/docs"));
+        assertNotNull(cache.get("/docs/sub"));
+    }
+
+    @Test
+    void invalidateTreeRemovesSubtreeAndParent() {
+        ListingCache cache = new ListingCache();
+        for (String path : List.of("/", "/docs", "/docs/a", "/docs/a/b", "/docsets", "/other")) {
+            cache.put(path, List.of(), cache.getVersion());
+        }
+
+        cache.invalidateTree("/docs");
+
+        assertNull(cache.get("/"));
+        assertNull(cache.get("/docs"));
+        assertNull(cache.get("/docs/a"));
+        assertNull(cache.get("/docs/a/b"));
+        assertNotNull(cache.get("/docsets"));
+        assertNotNull(cache.get("/other"));
+    }
+
+    @Test
+    void bindingNewScopeClearsCache() {
+        ListingCache cache = new ListingCache();
+        cache.bind("alice@host:21");
+        cache.put("/docs", List.of(), cache.getVersion());
+
+        cache.bind("alice@host:21");
+        assertNotNull(cache.get("/docs"));
+
+        cache.bind("bob@host:21");
+        assertNull(cache.get("/docs"));
+    }
+
+    private static FtpFileInfo file(String name) {
+        return new FtpFileInfo(name, false, 1, null);
+    }
+}
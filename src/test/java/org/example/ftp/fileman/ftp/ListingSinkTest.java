@@ -0,0 +1,90 @@
+package org.example.ftp.fileman.ftp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ListingSinkTest {
+
+    @Test
+    void retryOfSameCommandSkipsDeliveredEntries() {
+        Recorder recorder = new Recorder();
+        ListingSink sink = new ListingSink(recorder, 1, 0);
+
+        sink.begin("MLSD");
+        sink.accept(file("a"));
+        sink.accept(file("b"));
+        sink.begin("MLSD");
+        sink.accept(file("a"));
+        sink.accept(file("b"));
+        sink.accept(file("c"));
+        sink.finish();
+
+        assertEquals(List.of("a", "b", "c"), names(sink.getFiles()));
+        assertEquals(List.of("a", "b", "c"), recorder.shown);
+        assertEquals(0, recorder.resets);
+    }
+
+    @Test
+    void switchingCommandStartsOver() {
+        Recorder recorder = new Recorder();
+        ListingSink sink = new ListingSink(recorder, 1, 0);
+
+        sink.begin("LIST");
+        sink.accept(file("a"));
+        sink.accept(file("b"));
+        sink.reset();
+        sink.accept(file("c"));
+        sink.accept(file("a"));
+        sink.finish();
+
+        assertEquals(List.of("c", "a"), names(sink.getFiles()));
+        assertEquals(List.of("c", "a"), recorder.shown);
+        assertEquals(1, recorder.resets);
+    }
+
+    @Test
+    void resetBeforeAnythingShownDoesNotNotify() {
+        Recorder recorder = new Recorder();
+        ListingSink sink = new ListingSink(recorder, 1, 0);
+
+        sink.begin("MLSD");
+        sink.begin("LIST");
+        sink.accept(file("a"));
+        sink.finish();
+
+        assertEquals(List.of("a"), recorder.shown);
+        assertEquals(0, recorder.resets);
+    }
+
+    private static List<String> names(List<FtpFileInfo> files) {
+        List<String> names = new ArrayList<>();
+        for (FtpFileInfo file : files) {
+            names.add(file.getName());
+        }
+        return names;
+    }
+
+    private static FtpFileInfo file(String name) {
+        return new FtpFileInfo(name, false, 1, null);
+    }
+
+    private static class Recorder implements FtpClientService.ListingCallback {
+        private final List<String> shown = new ArrayList<>();
+        private int resets = 0;
+
+        @Override
+        public void onEntries(List<FtpFileInfo> batch, int totalEntries) {
+            shown.addAll(names(batch));
+        }
+
+        @Override
+        public void onReset() {
+            shown.clear();
+            resets++;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.ftp.fileman.ftp;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Calendar;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MlsdEntryParserTest {
+
+    @Test
+    void parsesFileFacts() {
+        FtpFileInfo info = MlsdEntryParser.parse("type=file;size=1024;modify=20240301120000;perm=r; data.bin");
+
+        assertNotNull(info);
+        assertEquals("data.bin", info.getName());
+        assertFalse(info.isDirectory());
+        assertEquals(1024, info.getSize());
+        assertEquals(Instant.parse("2024-03-01T12:00:00Z").toEpochMilli(), info.getTimestamp().getTimeInMillis());
+    }
+
+    @Test
+    void parsesDirectoryWithCaseInsensitiveFacts() {
+        FtpFileInfo info = MlsdEntryParser.parse("Type=dir;Modify=20240301120000; my folder");
+
+        assertNotNull(info);
+        assertEquals("my folder", info.getName());
+        assertTrue(info.isDirectory());
+    }
+
+    @Test
+    void parsesFractionalModifyTime() {
+        Calendar millis = MlsdEntryParser.parseTimestamp("20240301120000.5");
+        Calendar precise = MlsdEntryParser.parseTimestamp("20240301120000.123456");
+        long base = Instant.parse("2024-03-01T12:00:00Z").toEpochMilli();
+
+        assertEquals(base + 500, millis.getTimeInMillis());
+        assertEquals(base + 123, precise.getTimeInMillis());
+    }
+
+    @Test
+    void rejectsMalformedModifyTime() {
+        assertNull(MlsdEntryParser.parseTimestamp("2024"));
+        assertNull(MlsdEntryParser.parseTimestamp("20241301120000"));
+        assertNull(MlsdEntryParser.parseTimestamp("2024030112000x"));
+    }
+
+    @Test
+    void usesSizdWhenSizeIsMissing() {
+        FtpFileInfo dir = MlsdEntryParser.parse("type=dir;sizd=4096; cache");
+        FtpFileInfo file = MlsdEntryParser.parse("type=file;sizd=4096;size=10; small.txt");
+
+        assertEquals(4096, dir.getSize());
+        assertEquals(10, file.getSize());
+    }
+
+    @Test
+    void skipsCurrentAndParentDirectories() {
+        assertNull(MlsdEntryParser.parse("type=cdir;modify=20240301120000; /home/user"));
+        assertNull(MlsdEntryParser.parse("type=pdir;modify=20240301120000; /home"));
+        assertNull(MlsdEntryParser.parse("type=dir; .."));
+    }
+
+    @Test
+    void rejectsLinesWithoutTypeOrName() {
+        assertNull(MlsdEntryParser.parse("size=10; orphan.txt"));
+        assertNull(MlsdEntryParser.parse("type=file;size=10;"));
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.ftp.fileman.service;
+
+import org.example.ftp.fileman.ftp.FtpClientService;
+import org.example.ftp.fileman.ftp.FtpFileInfo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+class FakeFtpSession extends FtpClientService {
+
+    private final Map<String, List<FtpFileInfo>> directories = new ConcurrentHashMap<>();
+    private final Set<String> unreadable = ConcurrentHashMap.newKeySet();
+    private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+
+    FakeFtpSession directory(String path, String... children) {
+        List<FtpFileInfo> entries = new ArrayList<>();
+        for (String child : children) {
+            boolean isDirectory = child.endsWith("/");
+            String name = isDirectory ? child.substring(0, child.length() - 1) : child;
+            entries.add(new FtpFileInfo(name, isDirectory, 1, null));
+        }
+        directories.put(path, entries);
+        return this;
+    }
+
+    FakeFtpSession unreadable(String path) {
+        unreadable.add(path);
+        return this;
+    }
+
+    Set<String> getDeleted() {
+        return deleted;
+    }
+
+    @Override
+    public FtpClientService openWorkerSession() {
+        return this;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return true;
+    }
+
+    @Override
+    public void disconnect() {
+    }
+
+    @Override
+    public List<FtpFileInfo> listFiles(String path) throws IOException {
+        if (unreadable.contains(path)) {
+            throw new IOException("Permission denied: " + path + " (550 Access denied)");
+        }
+        return new ArrayList<>(directories.getOrDefault(path, List.of()));
+    }
+
+    @Override
+    public boolean deleteFile(String path) {
+        deleted.add(path);
+        return true;
+    }
+
+    @Override
+    public boolean deleteDirectory(String path) {
+        deleted.add(path);
+        return true;
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.ftp.fileman.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecursiveDeleteServiceTest {
+
+    @Test
+    void deletesFilesBeforeTheirDirectories() {
+        FakeFtpSession session = new FakeFtpSession()
+            .directory("/root", "a.txt", "sub/")
+            .directory("/root/sub", "b.txt");
+
+        RecursiveDeleteService.Result result = new RecursiveDeleteService(session, 2).deleteTree("/root", null);
+
+        assertTrue(result.isSuccessful(), result.getErrorMessage());
+        assertEquals(4, result.getTotal());
+        assertEquals(2, result.getDeletedFiles());
+        assertEquals(2, result.getRemovedDirectories());
+        assertEquals(Set.of("/root", "/root/sub", "/root/a.txt", "/root/sub/b.txt"), session.getDeleted());
+    }
+
+    @Test
+    void reportsListingFailureInsteadOfRemovingDirectories() {
+        FakeFtpSession session = new FakeFtpSession()
+            .directory("/root", "a.txt", "locked/")
+            .directory("/root/locked", "secret.txt")
+            .unreadable("/root/locked");
+
+        RecursiveDeleteService.Result result = new RecursiveDeleteService(session, 2).deleteTree("/root", null);
+
+        assertFalse(result.isSuccessful());
+        assertTrue(result.getFailed() > 0);
+        assertTrue(result.getErrorMessage().contains("Permission denied: /root/locked"), result.getErrorMessage());
+        assertEquals(0, result.getRemovedDirectories());
+        assertFalse(session.getDeleted().contains("/root"));
+        assertFalse(session.getDeleted().contains("/root/locked"));
+    }
+}
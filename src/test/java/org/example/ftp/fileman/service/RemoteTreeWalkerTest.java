@@ -0,0 +1,64 @@
+package org.example.ftp.fileman.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RemoteTreeWalkerTest {
+
+    @Test
+    void visitsEveryDirectoryAndFile() throws IOException {
+        FakeFtpSession session = new FakeFtpSession()
+            .directory("/root", "a.txt", "sub/")
+            .directory("/root/sub", "b.txt", "deeper/")
+            .directory("/root/sub/deeper", "c.txt");
+        Recorder recorder = new Recorder();
+
+        new RemoteTreeWalker(session, 2).walk("/root", recorder);
+
+        assertEquals(Set.of("/root", "/root/sub", "/root/sub/deeper"), recorder.directories);
+        assertEquals(Set.of("/root/a.txt", "/root/sub/b.txt", "/root/sub/deeper/c.txt"), recorder.files);
+    }
+
+    @Test
+    void failsWhenSubdirectoryCannotBeListed() {
+        FakeFtpSession session = new FakeFtpSession()
+            .directory("/root", "a.txt", "locked/")
+            .directory("/root/locked", "secret.txt")
+            .unreadable("/root/locked");
+
+        IOException e = assertThrows(IOException.class, () -> new RemoteTreeWalker(session, 2).walk("/root", new Recorder()));
+
+        assertTrue(e.getMessage().contains("/root/locked"), e.getMessage());
+    }
+
+    @Test
+    void skipsUnsafeEntryNames() {
+        assertEquals("b.txt", RemoteTreeWalker.entryName("/a/b.txt"));
+        assertNull(RemoteTreeWalker.entryName(".."));
+        assertNull(RemoteTreeWalker.entryName("a\\b"));
+        assertNull(RemoteTreeWalker.entryName("dir/"));
+    }
+
+    private static class Recorder implements RemoteTreeWalker.Visitor {
+        private final Set<String> directories = ConcurrentHashMap.newKeySet();
+        private final Set<String> files = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void onDirectory(String path, int depth) {
+            directories.add(path);
+        }
+
+        @Override
+        public void onFile(String path, long size, int depth) {
+            files.add(path);
+        }
+    }
+}